@@ -0,0 +1,128 @@
+package ext2bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures listing (Directory.getFileInfo) and name lookups in directories of 10, 1k and 100k entries.
+ * lookup reuses one Volume, so after the first call it is served from the dentry and directory index caches.
+ * coldLookup opens a fresh Volume before every call, so it reads the directory and builds its name index.
+ * Only the reader's caches are cold, the image stays in the OS page cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryBenchmark
+{
+    @Param({"10", "1000", "100000"})
+    public int entries;
+
+    private Object volume;
+    private Object directory;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /**
+     * Opens the fixture image and the directory
+     * @throws IOException If the image could not be built
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        String image = Fixtures.directory(entries).toString();
+        volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+        directory = Ext2.openDirectory(volume, "/dir/");
+    }
+
+    /**
+     * Closes the Volume
+     * @throws IOException If the Volume could not be closed
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        ((Closeable) volume).close();
+    }
+
+    /**
+     * Builds the ls style listing of the directory
+     * @return Listing
+     */
+    @Benchmark
+    public String list()
+    {
+        return Ext2.getFileInfo(directory);
+    }
+
+    /**
+     * Looks up a random file name in the directory
+     * @return Inode number
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int lookup()
+    {
+        return Ext2.getEntryInode(directory, "file" + random.nextInt(entries));
+    }
+
+    /**
+     * Looks up a random file name in the directory of a Volume with empty caches
+     * @param cold Fresh Volume and directory
+     * @return Inode number
+     */
+    @Benchmark
+    public int coldLookup(ColdDirectory cold)
+    {
+        return Ext2.getEntryInode(cold.directory, "file" + random.nextInt(entries));
+    }
+
+    /**
+     * Volume and directory opened before and closed after every benchmark call, outside the measured time
+     */
+    @State(Scope.Thread)
+    public static class ColdDirectory
+    {
+        private Object volume;
+        private Object directory;
+
+        /**
+         * Opens a fresh Volume and the directory
+         * @param benchmark Benchmark state holding the directory size
+         * @throws IOException If the image could not be built
+         */
+        @Setup(Level.Invocation)
+        public void open(DirectoryBenchmark benchmark) throws IOException
+        {
+            String image = Fixtures.directory(benchmark.entries).toString();
+            volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+            directory = Ext2.openDirectory(volume, "/dir/");
+        }
+
+        /**
+         * Closes the Volume
+         * @throws IOException If the Volume could not be closed
+         */
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            ((Closeable) volume).close();
+        }
+    }
+}
\ No newline at end of file
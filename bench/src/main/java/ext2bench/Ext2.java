@@ -0,0 +1,450 @@
+package ext2bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bridge from the benchmark package to the reader classes.
+ * The reader lives in the unnamed package, which named packages cannot import, and JMH
+ * does not allow benchmarks in the unnamed package. Calls go through constant MethodHandles
+ * instead, which the JIT inlines like direct calls.
+ */
+final class Ext2
+{
+    private static final MethodHandle NEW_VOLUME;
+    private static final MethodHandle VOLUME_GET_INODE;
+    private static final MethodHandle INODE_IS_DIR;
+    private static final MethodHandle NEW_DIRECTORY;
+    private static final MethodHandle NEW_DIRECTORY_BY_INODE;
+    private static final MethodHandle DIRECTORY_GET_FILE_INFO;
+    private static final MethodHandle DIRECTORY_GET_ENTRY_INODE;
+    private static final MethodHandle DIRECTORY_GET_ENTRIES;
+    private static final MethodHandle DIRECTORY_GET_CURSOR;
+    private static final MethodHandle CURSOR_NEXT;
+    private static final MethodHandle CURSOR_IS_DOT_ENTRY;
+    private static final MethodHandle CURSOR_GET_INODE;
+    private static final MethodHandle ENTRY_GET_INODE;
+    private static final MethodHandle ENTRY_GET_FILE_NAME;
+    private static final MethodHandle NEW_EXT2FILE;
+    private static final MethodHandle EXT2FILE_READ;
+    private static final MethodHandle EXT2FILE_READ_INTO;
+    private static final MethodHandle EXT2FILE_SIZE;
+    private static final MethodHandle NEW_FILE_INFO;
+    private static final MethodHandle FILE_INFO_GET_NUM_USEFUL_BLOCKS;
+
+    static
+    {
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> volume = Class.forName("Volume");
+            Class<?> inode = Class.forName("Inode");
+            Class<?> directory = Class.forName("Directory");
+            Class<?> ext2File = Class.forName("Ext2File");
+            Class<?> fileInfo = Class.forName("FileInfo");
+            Class<?> entry = Class.forName("Directory$DirectoryEntry");
+            Class<?> cursor = Class.forName("DirectoryCursor");
+
+            NEW_VOLUME = lookup.findConstructor(volume, MethodType.methodType(void.class, String.class, boolean.class, int.class));
+            VOLUME_GET_INODE = lookup.findVirtual(volume, "getInode", MethodType.methodType(inode, int.class));
+            INODE_IS_DIR = lookup.findVirtual(inode, "isDir", MethodType.methodType(boolean.class));
+            NEW_DIRECTORY = lookup.findConstructor(directory, MethodType.methodType(void.class, volume, String.class));
+            NEW_DIRECTORY_BY_INODE = lookup.findConstructor(directory, MethodType.methodType(void.class, volume, int.class, String.class));
+            DIRECTORY_GET_FILE_INFO = lookup.findVirtual(directory, "getFileInfo", MethodType.methodType(String.class));
+            DIRECTORY_GET_ENTRY_INODE = lookup.findVirtual(directory, "getEntryInode", MethodType.methodType(int.class, String.class));
+            DIRECTORY_GET_ENTRIES = lookup.findVirtual(directory, "getEntries", MethodType.methodType(ArrayList.class));
+            DIRECTORY_GET_CURSOR = lookup.findVirtual(directory, "getCursor", MethodType.methodType(cursor));
+            CURSOR_NEXT = lookup.findVirtual(cursor, "next", MethodType.methodType(boolean.class));
+            CURSOR_IS_DOT_ENTRY = lookup.findVirtual(cursor, "isDotEntry", MethodType.methodType(boolean.class));
+            CURSOR_GET_INODE = lookup.findVirtual(cursor, "getInode", MethodType.methodType(int.class));
+            ENTRY_GET_INODE = lookup.findVirtual(entry, "getInode", MethodType.methodType(int.class));
+            ENTRY_GET_FILE_NAME = lookup.findVirtual(entry, "getFileName", MethodType.methodType(String.class));
+            NEW_EXT2FILE = lookup.findConstructor(ext2File, MethodType.methodType(void.class, volume, String.class));
+            EXT2FILE_READ = lookup.findVirtual(ext2File, "read", MethodType.methodType(byte[].class, long.class, long.class));
+            EXT2FILE_READ_INTO = lookup.findVirtual(ext2File, "read", MethodType.methodType(int.class, long.class, byte[].class, int.class, int.class));
+            EXT2FILE_SIZE = lookup.findVirtual(ext2File, "size", MethodType.methodType(long.class));
+            NEW_FILE_INFO = lookup.findConstructor(fileInfo, MethodType.methodType(void.class, inode, volume));
+            FILE_INFO_GET_NUM_USEFUL_BLOCKS = lookup.findVirtual(fileInfo, "getNumUsefulBlocks", MethodType.methodType(int.class));
+        }
+        catch(ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Ext2()
+    {
+    }
+
+    /**
+     * Opens a Volume
+     * @param image Image path
+     * @param mapped True to memory-map the image
+     * @param cacheBlocks Block cache capacity in blocks
+     * @return Volume
+     */
+    static Object openVolume(String image, boolean mapped, int cacheBlocks)
+    {
+        try
+        {
+            return NEW_VOLUME.invoke(image, mapped, cacheBlocks);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets an inode of a Volume
+     * @param volume Volume
+     * @param index Inode number
+     * @return Inode
+     */
+    static Object getInode(Object volume, int index)
+    {
+        try
+        {
+            return VOLUME_GET_INODE.invoke(volume, index);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Checks whether an inode is a directory
+     * @param inode Inode
+     * @return True if it is a directory
+     */
+    static boolean isDir(Object inode)
+    {
+        try
+        {
+            return (boolean) INODE_IS_DIR.invoke(inode);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Opens a Directory by path
+     * @param volume Volume
+     * @param path Directory path
+     * @return Directory
+     */
+    static Object openDirectory(Object volume, String path)
+    {
+        try
+        {
+            return NEW_DIRECTORY.invoke(volume, path);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Opens a Directory by inode number
+     * @param volume Volume
+     * @param inode Inode number of the directory
+     * @param path Directory path
+     * @return Directory
+     */
+    static Object openDirectory(Object volume, int inode, String path)
+    {
+        try
+        {
+            return NEW_DIRECTORY_BY_INODE.invoke(volume, inode, path);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets the ls style listing of a Directory
+     * @param directory Directory
+     * @return Listing
+     */
+    static String getFileInfo(Object directory)
+    {
+        try
+        {
+            return (String) DIRECTORY_GET_FILE_INFO.invoke(directory);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Looks up an entry of a Directory
+     * @param directory Directory
+     * @param name Entry name
+     * @return Inode number, 0 if there is no such entry
+     */
+    static int getEntryInode(Object directory, String name)
+    {
+        try
+        {
+            return (int) DIRECTORY_GET_ENTRY_INODE.invoke(directory, name);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets the entries of a Directory, including . and ..
+     * @param directory Directory
+     * @return DirectoryEntry objects
+     */
+    static List<?> getEntries(Object directory)
+    {
+        try
+        {
+            return (List<?>) DIRECTORY_GET_ENTRIES.invoke(directory);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets a DirectoryCursor positioned before the first entry of a Directory
+     * @param directory Directory
+     * @return DirectoryCursor
+     */
+    static Object getCursor(Object directory)
+    {
+        try
+        {
+            return DIRECTORY_GET_CURSOR.invoke(directory);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Moves a DirectoryCursor to the next entry
+     * @param cursor DirectoryCursor
+     * @return False if there are no more entries
+     */
+    static boolean next(Object cursor)
+    {
+        try
+        {
+            return (boolean) CURSOR_NEXT.invoke(cursor);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Checks if the current entry of a DirectoryCursor is . or ..
+     * @param cursor DirectoryCursor
+     * @return True for . and ..
+     */
+    static boolean isDotEntry(Object cursor)
+    {
+        try
+        {
+            return (boolean) CURSOR_IS_DOT_ENTRY.invoke(cursor);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets the inode number of the current entry of a DirectoryCursor
+     * @param cursor DirectoryCursor
+     * @return Inode number
+     */
+    static int getCursorInode(Object cursor)
+    {
+        try
+        {
+            return (int) CURSOR_GET_INODE.invoke(cursor);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets the inode number of a DirectoryEntry
+     * @param entry DirectoryEntry
+     * @return Inode number
+     */
+    static int getEntryInode(Object entry)
+    {
+        try
+        {
+            return (int) ENTRY_GET_INODE.invoke(entry);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets the name of a DirectoryEntry
+     * @param entry DirectoryEntry
+     * @return File name
+     */
+    static String getEntryName(Object entry)
+    {
+        try
+        {
+            return (String) ENTRY_GET_FILE_NAME.invoke(entry);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Opens an Ext2File by path
+     * @param volume Volume
+     * @param path File path
+     * @return Ext2File
+     */
+    static Object openFile(Object volume, String path)
+    {
+        try
+        {
+            return NEW_EXT2FILE.invoke(volume, path);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads a range of an Ext2File into a new array
+     * @param file Ext2File
+     * @param start Start byte
+     * @param length Length
+     * @return Bytes read
+     */
+    static byte[] read(Object file, long start, long length)
+    {
+        try
+        {
+            return (byte[]) EXT2FILE_READ.invoke(file, start, length);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Reads a range of an Ext2File into an existing array
+     * @param file Ext2File
+     * @param start Start byte
+     * @param arr Destination array
+     * @param offset Destination offset
+     * @param length Length
+     * @return Bytes read
+     */
+    static int read(Object file, long start, byte[] arr, int offset, int length)
+    {
+        try
+        {
+            return (int) EXT2FILE_READ_INTO.invoke(file, start, arr, offset, length);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Gets size of an Ext2File
+     * @param file Ext2File
+     * @return File size
+     */
+    static long size(Object file)
+    {
+        try
+        {
+            return (long) EXT2FILE_SIZE.invoke(file);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Builds the block map of an inode
+     * @param volume Volume
+     * @param inode Inode
+     * @return FileInfo
+     */
+    static Object newFileInfo(Object volume, Object inode)
+    {
+        try
+        {
+            return NEW_FILE_INFO.invoke(inode, volume);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Resolves the whole indirect tree of a FileInfo
+     * @param fileInfo FileInfo
+     * @return Number of non-empty blocks
+     */
+    static int getNumUsefulBlocks(Object fileInfo)
+    {
+        try
+        {
+            return (int) FILE_INFO_GET_NUM_USEFUL_BLOCKS.invoke(fileInfo);
+        }
+        catch(Throwable e)
+        {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Rethrows unchecked exceptions as they are and wraps checked ones
+     * @param e Exception thrown by a reader method
+     * @return Never returns normally, declared so callers can write throw rethrow(e)
+     */
+    private static RuntimeException rethrow(Throwable e)
+    {
+        if(e instanceof RuntimeException)
+            throw (RuntimeException) e;
+        if(e instanceof Error)
+            throw (Error) e;
+        return new IllegalStateException(e);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package ext2bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the block map of a 64 MiB file, with and without resolving the whole indirect tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileInfoBenchmark
+{
+    @Param({"1024", "4096"})
+    public int blockSize;
+
+    private Object volume;
+    private Object inode;
+
+    /**
+     * Opens the fixture image and finds the inode of the file
+     * @throws IOException If the image could not be built
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        String image = Fixtures.standard(blockSize).toString();
+        volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+        int number = Ext2.getEntryInode(Ext2.openDirectory(volume, "/"), Fixtures.LARGE_FILE.substring(1));
+        inode = Ext2.getInode(volume, number);
+    }
+
+    /**
+     * Closes the Volume
+     * @throws IOException If the Volume could not be closed
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        ((Closeable) volume).close();
+    }
+
+    /**
+     * Creates the FileInfo, indirect blocks are left unresolved
+     * @return FileInfo
+     */
+    @Benchmark
+    public Object create()
+    {
+        return Ext2.newFileInfo(volume, inode);
+    }
+
+    /**
+     * Creates the FileInfo and resolves the whole indirect tree
+     * @return Number of non-empty blocks
+     */
+    @Benchmark
+    public int resolveAll()
+    {
+        return Ext2.getNumUsefulBlocks(Ext2.newFileInfo(volume, inode));
+    }
+}
\ No newline at end of file
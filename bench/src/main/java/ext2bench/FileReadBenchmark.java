@@ -0,0 +1,103 @@
+package ext2bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures sequential and random Ext2File.read of a 64 MiB file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileReadBenchmark
+{
+    @Param({"1024", "4096"})
+    public int blockSize;
+
+    @Param({"false", "true"})
+    public boolean mapped;
+
+    @Param({"4096"})
+    public int randomReadSize;
+
+    private Object volume;
+    private Object file;
+    private byte[] buffer;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /**
+     * Opens the fixture image and the file
+     * @throws IOException If the image could not be built
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        String image = Fixtures.standard(blockSize).toString();
+        volume = Fixtures.quietly(() -> Ext2.openVolume(image, mapped, 4096));
+        file = Ext2.openFile(volume, Fixtures.LARGE_FILE);
+        buffer = new byte[1 << 20];
+    }
+
+    /**
+     * Closes the Volume
+     * @throws IOException If the Volume could not be closed
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        ((Closeable) volume).close();
+    }
+
+    /**
+     * Reads the whole file front to back in 1 MiB reads
+     * @return Bytes read
+     */
+    @Benchmark
+    public long sequential()
+    {
+        long size = Ext2.size(file);
+        long total = 0;
+        for(long position = 0;position<size;position += buffer.length)
+            total += Ext2.read(file, position, buffer, 0, buffer.length);
+        return total;
+    }
+
+    /**
+     * Reads randomReadSize bytes at a random offset
+     * @return Bytes read
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int random()
+    {
+        long position = random.nextLong(Ext2.size(file) - randomReadSize);
+        return Ext2.read(file, position, buffer, 0, randomReadSize);
+    }
+
+    /**
+     * Reads the whole file into a newly allocated array
+     * @return File contents
+     */
+    @Benchmark
+    public byte[] wholeFile()
+    {
+        return Ext2.read(file, 0, Ext2.size(file));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package ext2bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Generates ext2 fixture images with mke2fs -d.
+ * Images are built once into the fixture directory (bench/target/fixtures unless ext2bench.fixtures is set)
+ * and reused by later runs, so results stay comparable between releases.
+ */
+final class Fixtures
+{
+    static final String DEEP_PATH = "/d1/d2/d3/d4/d5/d6/d7/d8/d9/d10/";
+    static final String DEEP_FILE = DEEP_PATH + "leaf.txt";
+    static final String LARGE_FILE = "/large.bin";
+    static final int LARGE_FILE_SIZE = 64 << 20;
+    static final String SPARSE_FILE = "/sparse.bin";
+    static final int SCALING_FILES_PER_GIGABYTE = 16384;
+    static final int SCALING_FILES_PER_DIRECTORY = 1024;
+
+    private Fixtures()
+    {
+    }
+
+    /**
+     * Gets the standard fixture image with the requested block size:
+     * a file ten directories deep and a 64 MiB file of random bytes
+     * @param blockSize Block size, 1024 or 4096
+     * @return Image path
+     * @throws IOException If the image could not be built
+     */
+    static Path standard(int blockSize) throws IOException
+    {
+        return image("standard-" + blockSize, blockSize, 256, 0, root ->
+        {
+            Path deep = root.resolve(DEEP_PATH.substring(1));
+            Files.createDirectories(deep);
+            Files.write(deep.resolve("leaf.txt"), "leaf\n".getBytes());
+            writeRandom(root.resolve(LARGE_FILE.substring(1)), LARGE_FILE_SIZE, 1);
+        });
+    }
+
+    /**
+     * Gets an image holding a single directory /dir with the requested number of files
+     * @param entries Number of files in the directory
+     * @return Image path
+     * @throws IOException If the image could not be built
+     */
+    static Path directory(int entries) throws IOException
+    {
+        int megabytes = Math.max(16, entries / 64);
+        return image("directory-" + entries, 4096, megabytes, entries + 64, root ->
+        {
+            Path dir = root.resolve("dir");
+            Files.createDirectories(dir);
+            for(int i = 0;i<entries;i++)
+                Files.createFile(dir.resolve("file" + i));
+        });
+    }
+
+    /**
+     * Gets a scaling fixture image: SCALING_FILES_PER_GIGABYTE small files of one block each per GiB spread over
+     * directories of SCALING_FILES_PER_DIRECTORY files, and a sparse file of half the image size
+     * with 1 MiB of data at each end. Inode count is the mke2fs default, 65536 per GiB.
+     * Both the image and the host tree it is built from stay sparse on disk.
+     * @param gigabytes Image size in GiB
+     * @return Image path
+     * @throws IOException If the image could not be built
+     */
+    static Path scaling(int gigabytes) throws IOException
+    {
+        return image("scaling-" + gigabytes + "g", 4096, gigabytes * 1024, 0, root ->
+        {
+            int files = gigabytes * SCALING_FILES_PER_GIGABYTE;
+            byte[] content = new byte[64];
+            Arrays.fill(content, (byte) 'x');
+            for(int i = 0;i<files;i++)
+            {
+                Path dir = root.resolve("tree").resolve("d" + i / SCALING_FILES_PER_DIRECTORY);
+                if(i % SCALING_FILES_PER_DIRECTORY == 0)
+                    Files.createDirectories(dir);
+                Files.write(dir.resolve("f" + i), content);
+            }
+
+            long sparseSize = (long) gigabytes << 29;
+            byte[] chunk = new byte[1 << 20];
+            new Random(2).nextBytes(chunk);
+            try(RandomAccessFile sparse = new RandomAccessFile(root.resolve(SPARSE_FILE.substring(1)).toFile(), "rw"))
+            {
+                sparse.write(chunk);
+                sparse.seek(sparseSize - chunk.length);
+                sparse.write(chunk);
+            }
+        });
+    }
+
+    /**
+     * Builds an image unless it already exists
+     * @param name Image name
+     * @param blockSize Block size
+     * @param megabytes Image size in MiB
+     * @param inodes Number of inodes, 0 for the mke2fs default
+     * @param populate Fills the directory the image is built from
+     * @return Image path
+     * @throws IOException If the image could not be built
+     */
+    static Path image(String name, int blockSize, int megabytes, int inodes, Populator populate) throws IOException
+    {
+        Path dir = Paths.get(System.getProperty("ext2bench.fixtures", "target/fixtures"));
+        Path image = dir.resolve(name + ".ext2");
+        if(Files.exists(image))
+            return image;
+
+        Files.createDirectories(dir);
+        Path root = Files.createTempDirectory(dir, name);
+        Path partial = dir.resolve(name + ".partial");
+        try
+        {
+            populate.populate(root);
+            Files.deleteIfExists(partial);
+
+            ProcessBuilder mke2fs = inodes > 0
+                ? new ProcessBuilder("mke2fs", "-q", "-F", "-t", "ext2", "-b", String.valueOf(blockSize), "-N", String.valueOf(inodes), "-d", root.toString(), partial.toString(), megabytes + "M")
+                : new ProcessBuilder("mke2fs", "-q", "-F", "-t", "ext2", "-b", String.valueOf(blockSize), "-d", root.toString(), partial.toString(), megabytes + "M");
+            run(mke2fs);
+            Files.move(partial, image);
+        }
+        finally
+        {
+            delete(root);
+        }
+        return image;
+    }
+
+    /**
+     * Runs a process and fails if it exits with an error
+     * @param process ProcessBuilder
+     * @throws IOException If the process failed
+     */
+    static void run(ProcessBuilder process) throws IOException
+    {
+        try
+        {
+            Process started = process.inheritIO().start();
+            int exit = started.waitFor();
+            if(exit != 0)
+                throw new IOException(String.join(" ", process.command()) + " exited with " + exit);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes a file of pseudo random bytes
+     * @param file File
+     * @param size File size
+     * @param seed Random seed
+     * @throws IOException If the file could not be written
+     */
+    static void writeRandom(Path file, long size, long seed) throws IOException
+    {
+        Random random = new Random(seed);
+        byte[] chunk = new byte[1 << 20];
+        try(OutputStream out = Files.newOutputStream(file))
+        {
+            for(long written = 0;written<size;written += chunk.length)
+            {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, (int)Math.min(chunk.length, size - written));
+            }
+        }
+    }
+
+    /**
+     * Deletes a directory tree
+     * @param root Directory
+     * @throws IOException If it could not be deleted
+     */
+    static void delete(Path root) throws IOException
+    {
+        if(!Files.exists(root))
+            return;
+        try(Stream<Path> paths = Files.walk(root))
+        {
+            for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * Runs an action with System.out discarded, the reader prints a banner on every Volume it opens
+     * @param action Action
+     * @param <T> Result type
+     * @return Result of the action
+     */
+    static <T> T quietly(Supplier<T> action)
+    {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try
+        {
+            return action.get();
+        }
+        finally
+        {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Fills the directory a fixture image is built from
+     */
+    interface Populator
+    {
+        /**
+         * @param root Directory the image is built from
+         * @throws IOException If the files could not be written
+         */
+        void populate(Path root) throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package ext2bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures resolving a path ten directories deep through Directory.
+ * The warm benchmarks reuse one Volume, so after the first call every step is served from its dentry cache.
+ * The cold benchmarks open a fresh Volume before every call, so every step reads and indexes the directory.
+ * Only the reader's caches are cold, the image stays in the OS page cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathResolveBenchmark
+{
+    private Object volume;
+
+    /**
+     * Opens the fixture image
+     * @throws IOException If the image could not be built
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        String image = Fixtures.standard(4096).toString();
+        volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+    }
+
+    /**
+     * Closes the Volume
+     * @throws IOException If the Volume could not be closed
+     */
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        ((Closeable) volume).close();
+    }
+
+    /**
+     * Walks to the deepest directory
+     * @return Directory
+     */
+    @Benchmark
+    public Object directory()
+    {
+        return Ext2.openDirectory(volume, Fixtures.DEEP_PATH);
+    }
+
+    /**
+     * Opens the file in the deepest directory
+     * @return Ext2File
+     */
+    @Benchmark
+    public Object file()
+    {
+        return Ext2.openFile(volume, Fixtures.DEEP_FILE);
+    }
+
+    /**
+     * Walks to the deepest directory of a Volume with empty caches
+     * @param cold Fresh Volume
+     * @return Directory
+     */
+    @Benchmark
+    public Object coldDirectory(ColdVolume cold)
+    {
+        return Ext2.openDirectory(cold.volume, Fixtures.DEEP_PATH);
+    }
+
+    /**
+     * Opens the file in the deepest directory of a Volume with empty caches
+     * @param cold Fresh Volume
+     * @return Ext2File
+     */
+    @Benchmark
+    public Object coldFile(ColdVolume cold)
+    {
+        return Ext2.openFile(cold.volume, Fixtures.DEEP_FILE);
+    }
+
+    /**
+     * Volume opened before and closed after every benchmark call, outside the measured time
+     */
+    @State(Scope.Thread)
+    public static class ColdVolume
+    {
+        private Object volume;
+
+        /**
+         * Opens a fresh Volume
+         * @throws IOException If the image could not be built
+         */
+        @Setup(Level.Invocation)
+        public void open() throws IOException
+        {
+            String image = Fixtures.standard(4096).toString();
+            volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+        }
+
+        /**
+         * Closes the Volume
+         * @throws IOException If the Volume could not be closed
+         */
+        @TearDown(Level.Invocation)
+        public void close() throws IOException
+        {
+            ((Closeable) volume).close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package ext2bench;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scaling suite: how the reader behaves as images grow to millions of inodes and multi-GB files.
+ * For every image size it builds a sparse fixture (Fixtures.scaling) and measures, each in a fresh JVM
+ * so heap figures are not polluted by earlier images:
+ *  - open: Volume constructor
+ *  - ttfb: Volume constructor, path resolution and the first byte of the sparse file
+ *  - walk: stat every inode reachable from the root, descending into every directory
+ *  - peak heap after open and after the walk, and heap retained by an open Volume after a full GC
+ * Each image is measured several times and the median of every metric is reported.
+ *
+ * Usage: java -cp target/benchmarks.jar ext2bench.ScalingSuite [GiB ...]
+ * Defaults to 1 4 16 GiB. -Dext2bench.runs sets the runs per image, -Dext2bench.jvmArgs passes
+ * options to the measured JVMs and -Dext2bench.results names a CSV file the medians are appended to.
+ */
+public final class ScalingSuite
+{
+    private static final String MEASURE = "measure";
+    private static final String RESULT = "RESULT";
+    private static final String[] COLUMNS = {"open_ms", "ttfb_ms", "walk_ms", "inodes", "peak_open_mb", "peak_walk_mb", "retained_mb"};
+    private static final double MB = 1 << 20;
+
+    private ScalingSuite()
+    {
+    }
+
+    /**
+     * Runs the suite, or measures a single image when called as "measure image"
+     * @param args Image sizes in GiB
+     * @throws Exception If an image could not be built or measured
+     */
+    public static void main(String[] args) throws Exception
+    {
+        if(args.length == 2 && args[0].equals(MEASURE))
+        {
+            measure(args[1]);
+            return;
+        }
+
+        int[] sizes = args.length == 0 ? new int[]{1, 4, 16} : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        int runs = Integer.getInteger("ext2bench.runs", 3);
+        String results = System.getProperty("ext2bench.results");
+
+        System.out.println(String.format("%-10s %s", "image", String.join(" ", padded(COLUMNS))));
+        for(int gigabytes : sizes)
+        {
+            Path image = Fixtures.scaling(gigabytes);
+            double[][] samples = new double[runs][];
+            for(int run = 0;run<runs;run++)
+                samples[run] = fork(image);
+
+            double[] medians = new double[COLUMNS.length];
+            for(int column = 0;column<COLUMNS.length;column++)
+            {
+                double[] values = new double[runs];
+                for(int run = 0;run<runs;run++)
+                    values[run] = samples[run][column];
+                Arrays.sort(values);
+                medians[column] = values[runs / 2];
+            }
+
+            String[] cells = new String[COLUMNS.length];
+            for(int column = 0;column<COLUMNS.length;column++)
+                cells[column] = String.format("%.1f", medians[column]);
+            System.out.println(String.format("%-10s %s", gigabytes + "g", String.join(" ", padded(cells))));
+
+            if(results != null)
+                append(Paths.get(results), gigabytes, cells);
+        }
+    }
+
+    /**
+     * Measures an image in a new JVM
+     * @param image Image path
+     * @return Metrics in COLUMNS order
+     * @throws IOException If the JVM failed or printed no result
+     */
+    private static double[] fork(Path image) throws IOException
+    {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmArgs = System.getProperty("ext2bench.jvmArgs", "");
+        if(!jvmArgs.isBlank())
+            command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScalingSuite.class.getName());
+        command.add(MEASURE);
+        command.add(image.toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try(BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream())))
+        {
+            String line;
+            while((line = in.readLine()) != null)
+            {
+                if(line.startsWith(RESULT))
+                    result = line;
+                else
+                    System.err.println(line);
+            }
+        }
+        try
+        {
+            if(process.waitFor() != 0 || result == null)
+                throw new IOException("measuring " + image + " failed");
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return Arrays.stream(result.substring(RESULT.length()).trim().split(" ")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    /**
+     * Measures one image in this JVM and prints the RESULT line
+     * @param image Image path
+     * @throws IOException If the sparse file could not be read
+     */
+    private static void measure(String image) throws IOException
+    {
+        System.gc();
+        resetPeakHeap();
+
+        long start = System.nanoTime();
+        Object volume = Fixtures.quietly(() -> Ext2.openVolume(image, false, 4096));
+        long opened = System.nanoTime();
+        double peakOpen = peakHeap();
+
+        Object file = Ext2.openFile(volume, Fixtures.SPARSE_FILE);
+        byte[] first = new byte[1];
+        if(Ext2.read(file, 0, first, 0, 1) != 1)
+            throw new IOException("no data in " + Fixtures.SPARSE_FILE);
+        long firstByte = System.nanoTime();
+
+        long walkStart = System.nanoTime();
+        long inodes = walk(volume);
+        long walked = System.nanoTime();
+        double peakWalk = peakHeap();
+
+        System.gc();
+        double retained = usedHeap();
+        ((Closeable) volume).close();
+
+        System.out.println(RESULT + " " + (opened - start) / 1e6 + " " + (firstByte - start) / 1e6 + " " + (walked - walkStart) / 1e6
+            + " " + inodes + " " + peakOpen / MB + " " + peakWalk / MB + " " + retained / MB);
+    }
+
+    /**
+     * Visits every entry reachable from the root and reads its inode, like a recursive ls -l
+     * @param volume Volume
+     * @return Number of entries visited
+     */
+    private static long walk(Object volume)
+    {
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        pending.push(2);
+        long visited = 0;
+        while(!pending.isEmpty())
+        {
+            Object cursor = Ext2.getCursor(Ext2.openDirectory(volume, pending.pop(), "/"));
+            while(Ext2.next(cursor))
+            {
+                if(Ext2.isDotEntry(cursor))
+                    continue;
+                int number = Ext2.getCursorInode(cursor);
+                visited++;
+                if(Ext2.isDir(Ext2.getInode(volume, number)))
+                    pending.push(number);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Resets the peak usage of every heap pool
+     */
+    private static void resetPeakHeap()
+    {
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if(pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    /**
+     * Gets the sum of the peak usage of the heap pools since the last reset
+     * @return Bytes
+     */
+    private static double peakHeap()
+    {
+        double peak = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if(pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /**
+     * Gets the bytes currently used on the heap
+     * @return Bytes
+     */
+    private static double usedHeap()
+    {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Appends one row of medians to a CSV file, writing the header first if the file is new
+     * @param file CSV file
+     * @param gigabytes Image size in GiB
+     * @param cells Medians in COLUMNS order
+     * @throws IOException If the file could not be written
+     */
+    private static void append(Path file, int gigabytes, String[] cells) throws IOException
+    {
+        boolean header = !Files.exists(file);
+        try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))
+        {
+            if(header)
+                out.println("image_gb," + String.join(",", COLUMNS));
+            out.println(gigabytes + "," + String.join(",", cells));
+        }
+    }
+
+    /**
+     * Right-aligns cells to a common width
+     * @param cells Cells
+     * @return Padded cells
+     */
+    private static String[] padded(String[] cells)
+    {
+        String[] padded = new String[cells.length];
+        for(int i = 0;i<cells.length;i++)
+            padded[i] = String.format("%12s", cells[i]);
+        return padded;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package ext2bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures opening a Volume: superblock, group descriptors and the first inode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VolumeOpenBenchmark
+{
+    @Param({"1024", "4096"})
+    public int blockSize;
+
+    @Param({"false", "true"})
+    public boolean mapped;
+
+    private String image;
+
+    /**
+     * Builds the fixture image
+     * @throws IOException If the image could not be built
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        image = Fixtures.standard(blockSize).toString();
+    }
+
+    /**
+     * Opens and closes a Volume and reads the root inode
+     * @return Root inode
+     * @throws IOException If the Volume could not be closed
+     */
+    @Benchmark
+    public Object open() throws IOException
+    {
+        Object volume = Fixtures.quietly(() -> Ext2.openVolume(image, mapped, 4096));
+        Object root = Ext2.getInode(volume, 2);
+        ((Closeable) volume).close();
+        return root;
+    }
+}
\ No newline at end of file
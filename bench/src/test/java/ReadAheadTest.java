@@ -0,0 +1,127 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that turning read-ahead on does not change the blocks FileInfo returns,
+ * in particular at the end of the file and in holes.
+ * The image is built with mke2fs -d, the tests are skipped where it is not installed.
+ */
+public class ReadAheadTest
+{
+    private static final int BLOCK_SIZE = 4096;
+    private static final int DATA_BLOCKS = 3;
+    private static final int HOLE_BLOCKS = 8;
+
+    @TempDir
+    Path dir;
+
+    private Volume vol;
+    private ExecutorService executor;
+
+    /**
+     * Builds an image holding /data.bin, three full blocks and a partial one, and /sparse.bin, a hole followed by one block
+     * @throws Exception If the image could not be built
+     */
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        Path root = Files.createDirectory(dir.resolve("root"));
+        byte[] data = new byte[DATA_BLOCKS * BLOCK_SIZE + 100];
+        for(int i = 0;i<data.length;i++)
+            data[i] = (byte)(i % 251 + 1);
+        Files.write(root.resolve("data.bin"), data);
+        try(RandomAccessFile sparse = new RandomAccessFile(root.resolve("sparse.bin").toFile(), "rw"))
+        {
+            sparse.seek((long)HOLE_BLOCKS * BLOCK_SIZE);
+            sparse.write(data, 0, BLOCK_SIZE);
+        }
+
+        Path image = dir.resolve("test.ext2");
+        Process mke2fs;
+        try
+        {
+            mke2fs = new ProcessBuilder("mke2fs", "-q", "-F", "-t", "ext2", "-b", String.valueOf(BLOCK_SIZE),
+                "-d", root.toString(), image.toString(), "4M").redirectErrorStream(true).start();
+        }
+        catch(IOException e)
+        {
+            mke2fs = null;
+        }
+        assumeTrue(mke2fs != null && mke2fs.waitFor() == 0, "mke2fs -d is not available");
+
+        vol = new Volume(image.toString());
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Closes the Volume and the executor
+     * @throws IOException If the Volume could not be closed
+     */
+    @AfterEach
+    public void tearDown() throws IOException
+    {
+        if(executor != null)
+            executor.shutdownNow();
+        if(vol != null)
+            vol.close();
+    }
+
+    /**
+     * Opens a file's FileInfo
+     * @param path Path of the file
+     * @param readAhead True to read through a ReadAhead
+     * @return FileInfo
+     */
+    private FileInfo open(String path, boolean readAhead)
+    {
+        FileInfo fileInfo = new FileInfo(vol.getInode(Directory.resolve(vol, path)), vol);
+        if(readAhead)
+            fileInfo.setReadAhead(new ReadAhead(vol, fileInfo, executor));
+        return fileInfo;
+    }
+
+    /**
+     * getNextBlock past the last block returns the zero block with and without read-ahead
+     */
+    @Test
+    public void nextBlockAtEndOfFile()
+    {
+        FileInfo plain = open("/data.bin", false);
+        FileInfo ahead = open("/data.bin", true);
+        assertEquals(DATA_BLOCKS + 1, ahead.getBlockNo());
+
+        for(int i = 0;i<ahead.getBlockNo();i++)
+            assertEquals(plain.getNextBlock(), ahead.getNextBlock(), "block " + i);
+
+        ByteBuffer pastEnd = ahead.getNextBlock();
+        assertEquals(plain.getNextBlock(), pastEnd);
+        assertEquals(vol.getZeroBlock(), pastEnd);
+        assertEquals(vol.getZeroBlock(), ahead.getBlock(ahead.getBlockNo() + 5));
+    }
+
+    /**
+     * Blocks in a hole are the zero block with read-ahead, and the data after the hole is still read
+     */
+    @Test
+    public void holeBlocks()
+    {
+        FileInfo plain = open("/sparse.bin", false);
+        FileInfo ahead = open("/sparse.bin", true);
+
+        for(int i = 0;i<ahead.getBlockNo();i++)
+            assertEquals(plain.getBlock(i), ahead.getBlock(i), "block " + i);
+        assertEquals(vol.getZeroBlock(), ahead.getBlock(0));
+    }
+}
\ No newline at end of file
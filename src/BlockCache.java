@@ -0,0 +1,120 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class for caching disk blocks shared by all readers of a Volume.
+ * Blocks are keyed by physical block number and evicted in least recently used order.
+ * All methods are synchronized, so the cache can be shared by several threads.
+ */
+public class BlockCache
+{
+    private final int capacity;
+    private final LinkedHashMap<Long, ByteBuffer> blocks;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Create BlockCache
+     * @param capacity Maximum number of blocks kept in the cache, 0 disables caching
+     */
+    public BlockCache(int capacity)
+    {
+        this.capacity = capacity;
+        this.blocks = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest)
+            {
+                return size() > BlockCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets cached block and counts a hit or a miss
+     * @param blockNumber Physical block number
+     * @return Read-only view of the cached block, null if the block is not cached
+     */
+    public synchronized ByteBuffer get(long blockNumber)
+    {
+        ByteBuffer block = blocks.get(blockNumber);
+        if(block == null)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return view(block);
+    }
+
+    /**
+     * Saves block in the cache, evicting the least recently used block if the cache is full
+     * @param blockNumber Physical block number
+     * @param block Block data
+     * @return Read-only view of the saved block
+     */
+    public synchronized ByteBuffer put(long blockNumber, ByteBuffer block)
+    {
+        if(capacity > 0)
+            blocks.put(blockNumber, block);
+        return view(block);
+    }
+
+    /**
+     * Creates an independent read-only Little Endian view of a block
+     * @param block Block data
+     * @return Read-only view of the block
+     */
+    private ByteBuffer view(ByteBuffer block)
+    {
+        return block.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Removes all blocks from the cache and resets the counters
+     */
+    public synchronized void clear()
+    {
+        blocks.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Gets maximum number of blocks kept in the cache
+     * @return Maximum number of blocks kept in the cache
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Gets number of blocks currently in the cache
+     * @return Number of blocks currently in the cache
+     */
+    public synchronized int size()
+    {
+        return blocks.size();
+    }
+
+    /**
+     * Gets number of requests served from the cache
+     * @return Number of cache hits
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Gets number of requests that had to be read from disk
+     * @return Number of cache misses
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+}
\ No newline at end of file
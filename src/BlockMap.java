@@ -0,0 +1,237 @@
+import java.util.Arrays;
+
+/**
+ * Class for mapping logical file blocks to physical disk blocks.
+ * Blocks are stored as extents of physically contiguous runs in primitive arrays,
+ * so a file with N blocks in R runs takes O(R) memory and lookups take O(log R).
+ */
+public class BlockMap
+{
+    private long[] logicalStart = new long[Constants.BLOCK_MAP_INITIAL_EXTENTS];
+    private long[] physicalStart = new long[Constants.BLOCK_MAP_INITIAL_EXTENTS];
+    private int[] length = new int[Constants.BLOCK_MAP_INITIAL_EXTENTS];
+    private int[] usefulStart = new int[Constants.BLOCK_MAP_INITIAL_EXTENTS];
+    private int extents = 0;
+    private int blocks = 0;
+    private int lastExtent = 0;
+    private boolean usefulDirty = false;
+
+    /**
+     * Adds a mapping for a logical block that is not yet in the map.
+     * Blocks added in increasing logical order are appended in O(1), others are inserted in place.
+     * @param logical Logical block number in file
+     * @param physical Physical block number on disk
+     */
+    public void add(long logical, long physical)
+    {
+        int previous = extents > 0 && logical > logicalStart[extents - 1] ? extents - 1 : findExtent(logical);
+
+        if(previous >= 0 && logicalStart[previous] + length[previous] == logical && physicalStart[previous] + length[previous] == physical)
+        {
+            length[previous]++;
+            blocks++;
+            if(previous != extents - 1)
+                usefulDirty = true;
+            return;
+        }
+
+        if(extents == logicalStart.length)
+            grow();
+
+        int extent = previous + 1;
+        if(extent < extents)
+        {
+            System.arraycopy(logicalStart, extent, logicalStart, extent + 1, extents - extent);
+            System.arraycopy(physicalStart, extent, physicalStart, extent + 1, extents - extent);
+            System.arraycopy(length, extent, length, extent + 1, extents - extent);
+            System.arraycopy(usefulStart, extent, usefulStart, extent + 1, extents - extent);
+            usefulDirty = true;
+        }
+
+        logicalStart[extent] = logical;
+        physicalStart[extent] = physical;
+        length[extent] = 1;
+        usefulStart[extent] = blocks;
+        extents++;
+        blocks++;
+    }
+
+    /**
+     * Recalculates the index of the first non-empty block of every extent
+     * after blocks were inserted out of order
+     */
+    private void updateUsefulStart()
+    {
+        int useful = 0;
+        for(int i = 0;i<extents;i++)
+        {
+            usefulStart[i] = useful;
+            useful += length[i];
+        }
+        usefulDirty = false;
+    }
+
+    /**
+     * Doubles the capacity of the extent arrays
+     */
+    private void grow()
+    {
+        int capacity = logicalStart.length * 2;
+        logicalStart = Arrays.copyOf(logicalStart, capacity);
+        physicalStart = Arrays.copyOf(physicalStart, capacity);
+        length = Arrays.copyOf(length, capacity);
+        usefulStart = Arrays.copyOf(usefulStart, capacity);
+    }
+
+    /**
+     * Gets physical block number for a logical block
+     * @param logical Logical block number in file
+     * @return Physical block number, 0 if the block is a hole
+     */
+    public long getPhysical(long logical)
+    {
+        int extent = findExtent(logical);
+        if(extent < 0 || logical >= logicalStart[extent] + length[extent])
+            return 0;
+        return physicalStart[extent] + (logical - logicalStart[extent]);
+    }
+
+    /**
+     * Gets physical block number of the n-th non-empty block
+     * @param index Index of the block among non-empty blocks
+     * @return Physical block number, 0 if index is out of range
+     */
+    public long getUsefulPhysical(int index)
+    {
+        if(index < 0 || index >= blocks)
+            return 0;
+
+        int extent = findUsefulExtent(index);
+        return physicalStart[extent] + (index - usefulStart[extent]);
+    }
+
+    /**
+     * Gets number of blocks from the n-th non-empty block to the end of its extent
+     * @param index Index of the block among non-empty blocks
+     * @return Number of consecutive physical blocks starting at the block, 0 if index is out of range
+     */
+    public int getUsefulRunLength(int index)
+    {
+        if(index < 0 || index >= blocks)
+            return 0;
+
+        int extent = findUsefulExtent(index);
+        return usefulStart[extent] + length[extent] - index;
+    }
+
+    /**
+     * Finds the extent holding the n-th non-empty block.
+     * The previously found extent is checked first, so sequential access is O(1).
+     * @param index Index of the block among non-empty blocks, must be in range
+     * @return Extent index
+     */
+    private int findUsefulExtent(int index)
+    {
+        if(usefulDirty)
+            updateUsefulStart();
+
+        int extent = lastExtent;
+        if(index >= usefulStart[extent] && index < usefulStart[extent] + length[extent])
+            return extent;
+
+        int low = 0;
+        int high = extents - 1;
+        while(low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if(usefulStart[mid] <= index)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        lastExtent = low;
+        return low;
+    }
+
+    /**
+     * Finds the last extent starting at or before a logical block.
+     * The previously found extent is checked first, so sequential access is O(1).
+     * @param logical Logical block number in file
+     * @return Extent index, -1 if there is none
+     */
+    public int findExtent(long logical)
+    {
+        if(extents == 0 || logical < logicalStart[0])
+            return -1;
+
+        int extent = lastExtent;
+        if(logical >= logicalStart[extent] && (extent + 1 == extents || logical < logicalStart[extent + 1]))
+            return extent;
+        if(extent + 1 < extents && logical >= logicalStart[extent + 1] && (extent + 2 == extents || logical < logicalStart[extent + 2]))
+        {
+            lastExtent = extent + 1;
+            return lastExtent;
+        }
+
+        int low = 0;
+        int high = extents - 1;
+        while(low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if(logicalStart[mid] <= logical)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        lastExtent = low;
+        return low;
+    }
+
+    /**
+     * Gets number of non-empty blocks in the map
+     * @return Number of non-empty blocks
+     */
+    public int getBlocks()
+    {
+        return blocks;
+    }
+
+    /**
+     * Gets number of extents in the map
+     * @return Number of extents
+     */
+    public int getExtents()
+    {
+        return extents;
+    }
+
+    /**
+     * Gets first logical block of an extent
+     * @param extent Extent index
+     * @return First logical block of the extent
+     */
+    public long getLogicalStart(int extent)
+    {
+        return logicalStart[extent];
+    }
+
+    /**
+     * Gets first physical block of an extent
+     * @param extent Extent index
+     * @return First physical block of the extent
+     */
+    public long getPhysicalStart(int extent)
+    {
+        return physicalStart[extent];
+    }
+
+    /**
+     * Gets number of blocks in an extent
+     * @param extent Extent index
+     * @return Number of blocks in the extent
+     */
+    public int getLength(int extent)
+    {
+        return length[extent];
+    }
+}
\ No newline at end of file
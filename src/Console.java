@@ -1,3 +1,8 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.Scanner;
 
 /**
@@ -25,7 +30,7 @@ public class Console
         String input = "";
         Scanner in = new Scanner(System.in);
 
-        System.out.println("Available commands: cd, ls, cat, quit");
+        System.out.println("Available commands: " + Constants.CONSOLE_COMMANDS);
 
         while(!input.equals(Constants.CONSOLE_QUIT))
         {
@@ -35,7 +40,18 @@ public class Console
             input = in.nextLine();
 
             if(input.equals(Constants.CONSOLE_LS))
-                System.out.print(directory.getFileInfo());
+            {
+                try
+                {
+                    Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                    directory.getFileInfo(out);
+                    out.flush();
+                }
+                catch(IOException e)
+                {
+                    System.out.println(e);
+                }
+            }
 
             else if(input.length() > Constants.CONSOLE_CD.length()+1 && input.substring(0, Constants.CONSOLE_CD.length()).equals(Constants.CONSOLE_CD))
                 directory.goToTarget(input.substring(Constants.CONSOLE_CD.length()+1));
@@ -59,10 +75,60 @@ public class Console
 
                 ext2File = new Ext2File(vol, path);
                 ext2File.print();
+
+                // print() is byte-exact, end the last line so the prompt starts on a new one
+                if(ext2File.exists() && ext2File.size() > 0 && ext2File.read(ext2File.size()-1, 1)[0] != '\n')
+                    System.out.println();
+            }
+
+            else if(input.length() > Constants.CONSOLE_EXTRACT.length()+1 && input.substring(0, Constants.CONSOLE_EXTRACT.length()+1).equals(Constants.CONSOLE_EXTRACT + " "))
+            {
+                String[] arguments = input.substring(Constants.CONSOLE_EXTRACT.length()+1).trim().split(" +");
+                if(arguments.length != 2)
+                    System.out.println("Usage: extract [path] [host directory]");
+                else
+                {
+                    String path = arguments[0];
+                    if(path.charAt(0) != '/')
+                        path = directory.getCurrentPath() + path;
+
+                    new Extractor(vol).extract(path, arguments[1]);
+                }
+            }
+
+            else if(input.equals(Constants.CONSOLE_FIND) || input.startsWith(Constants.CONSOLE_FIND + " "))
+            {
+                String[] arguments = input.substring(Constants.CONSOLE_FIND.length()).trim().split(" +");
+                int first = 0;
+                String path = directory.getCurrentPath();
+                if(arguments[0].isEmpty())
+                    first = 1;
+                else if(arguments[0].charAt(0) != '-')
+                {
+                    path = arguments[0].charAt(0) == '/' ? arguments[0] : directory.getCurrentPath() + arguments[0];
+                    first = 1;
+                }
+
+                try
+                {
+                    FindQuery query = FindQuery.parse(arguments, first, System.currentTimeMillis());
+                    PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+                    Finder finder = new Finder(vol);
+                    long start = System.nanoTime();
+                    finder.find(path, query, (match, inode) -> out.println(match));
+                    out.flush();
+                    System.out.println("Found " + finder.getMatches() + " matches in " + finder.getDirectories() + " directories in "
+                        + String.format("%.2f", (System.nanoTime() - start) / 1e9) + " s");
+                }
+                catch(IllegalArgumentException e)
+                {
+                    System.out.println(e.getMessage());
+                    System.out.println("Usage: find [path] [-name glob] [-regex regex] [-type f|d|l|c|b|p|s] [-size [+|-]n[c|k|M|G]] [-mtime [+|-]days] [-uid id] [-gid id]");
+                }
             }
 
             else if(!input.equals(Constants.CONSOLE_QUIT))
-                System.out.println("Unknown or wrong command. Available commands: cd, ls, cat, quit");
+                System.out.println("Unknown or wrong command. Available commands: " + Constants.CONSOLE_COMMANDS);
         }
         in.close();
     }
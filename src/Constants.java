@@ -1,8 +1,14 @@
 public class Constants
 {
     // Inode file modes
+    public final static int IFMT = 0xF000;       // File type mask
     public final static int IFDIR = 0x4000;      // Directory
     public final static int IFREG = 0x8000;      // Regular File
+    public final static int IFLNK = 0xA000;      // Symbolic Link
+    public final static int IFCHR = 0x2000;      // Character Device
+    public final static int IFBLK = 0x6000;      // Block Device
+    public final static int IFIFO = 0x1000;      // FIFO
+    public final static int IFSOCK = 0xC000;     // Socket
     public final static int IRUSR = 0x0100;      // User read
     public final static int IWUSR = 0x0080;      // User write
     public final static int IXUSR = 0x0040;      // User execute
@@ -17,11 +23,21 @@ public class Constants
 
 
     // General constants
-    public final static int BLOCK_SIZE = 1024;
+    public final static int BLOCK_POINTER_SIZE = 4; // block pointers are 32 bit
     public final static int INT_SIZE = 2147483647;
     public final static int INT_SIZE_BITS = 32;
     public final static int SECOND = 1000; // 1000ms = 1 second
 
+    // Volume constants
+    public final static long VOLUME_MAP_CHUNK_SIZE = 1L << 30; // 1 GiB per mapped chunk
+    public final static String VOLUME_MAPPED_FLAG = "-m";
+    public final static int VOLUME_BLOCK_CACHE_SIZE = 4096; // blocks kept in the shared block cache
+    public final static int VOLUME_DENTRY_CACHE_SIZE = 65536; // lookups kept in the shared directory entry cache
+    public final static int VOLUME_DIRECTORY_INDEX_CACHE_SIZE = 256; // directory name indexes kept per volume
+    public final static int VOLUME_SCAN_GROUPS_PER_TASK = 1; // block groups decoded by one inode scan task
+    public final static int VOLUME_SCAN_INODE_GAP = 1; // blocks of free inodes an inode scan reads through instead of seeking past
+    public final static int VOLUME_INODE_PAGE_SIZE = 256; // inodes per page of the inode table, pages are allocated on first use
+
     // Superblock offsets
     public final static int SUPERBLOCK_MAGIC_NUMBER = 0xef53;
     public final static int SUPERBLOCK_LABEL_SIZE = 16;
@@ -30,11 +46,19 @@ public class Constants
     public final static int SUPERBLOCK_INODE_SIZE_OFFSET = 88;
     public final static int SUPERBLOCK_BLOCKS_PER_GROUP_OFFSET = 32;
     public final static int SUPERBLOCK_INODES_PER_GROUP_OFFSET = 40;
+    public final static int SUPERBLOCK_FIRST_DATA_BLOCK_OFFSET = 20;
+    public final static int SUPERBLOCK_LOG_BLOCK_SIZE_OFFSET = 24;
     public final static int SUPERBLOCK_OFFSET = 1024;
+    public final static int SUPERBLOCK_SIZE = 1024;
+    public final static int SUPERBLOCK_MIN_BLOCK_SIZE = 1024; // block size is 1024 << s_log_block_size
     
     // Group Descriptor constants
-    public final static int GROUP_DESCRIPTOR_OFFSET = 2048;
+    public final static int GROUP_DESCRIPTOR_BLOCK_BITMAP_OFFSET = 0;
+    public final static int GROUP_DESCRIPTOR_INODE_BITMAP_OFFSET = 4;
     public final static int GROUP_DESCRIPTOR_INODE_TABLE_OFFSET = 8;
+    public final static int GROUP_DESCRIPTOR_FREE_BLOCKS_OFFSET = 12;
+    public final static int GROUP_DESCRIPTOR_FREE_INODES_OFFSET = 14;
+    public final static int GROUP_DESCRIPTOR_USED_DIRECTORIES_OFFSET = 16;
     public final static int GROUP_DESCRIPTOR_SIZE = 32;
 
     // Console commands
@@ -42,6 +66,9 @@ public class Constants
     public final static String CONSOLE_CD = "cd";
     public final static String CONSOLE_LS = "ls";
     public final static String CONSOLE_CAT = "cat";
+    public final static String CONSOLE_EXTRACT = "extract";
+    public final static String CONSOLE_FIND = "find";
+    public final static String CONSOLE_COMMANDS = "cd, ls, cat, extract, find, quit";
 
     // Helper constants
     public final static int HELPER_HEX_PER_LINE = 16;
@@ -51,13 +78,54 @@ public class Constants
 
     // Inode constants
     public final static int INODE_DIRECT_POINTERS = 12;
+    public final static int INODE_BLOCK_POINTERS = 15; // direct, indirect, double and triple indirect
+    public final static int INODE_FILE_MODE_OFFSET = 0;
+    public final static int INODE_OWNER_ID_OFFSET = 2;
+    public final static int INODE_FILE_SIZE_LOWER_OFFSET = 4;
+    public final static int INODE_LAST_MODIFIED_OFFSET = 16;
+    public final static int INODE_GROUP_ID_OFFSET = 24;
+    public final static int INODE_HARD_LINKS_OFFSET = 26;
     public final static int INODE_DIRECT_POINTERS_OFFSET = 40;
     public final static int INODE_FILE_SIZE_UPPER_OFFSET = 108;
     public final static int INODE_FILE_TYPE_FILE = 1;
     public final static int INODE_FILE_TYPE_DIRECTORY = 2;
     public final static int INODE_ROOT = 2;
-    public final static int INODES_PER_BLOCK = 256;
+    public final static int INODE_FAST_LINK_SIZE = 60; // symbolic link targets shorter than this are stored in the block pointers
+
+    // File stream constants
+    public final static int FILE_STREAM_BUFFER_SIZE = 65536; // internal buffer of Ext2InputStream and Ext2FileChannel
+    public final static int FILE_WRITE_BUFFER_SIZE = 1 << 20; // chunk size of Ext2File.writeTo
+    public final static int FILE_TRANSFER_MIN_RUN = 65536; // shortest physical run sent with FileChannel.transferTo
+    public final static int FILE_TRANSFER_BUFFER_SIZE = 1 << 20; // buffer gathering shorter runs in Ext2File.transferTo
+
+    // File info constants
+    public final static int FILE_INFO_MAX_RUN_READ = 1 << 20; // largest single read of a contiguous block run
+
+    // Read-ahead constants
+    public final static int READ_AHEAD_MIN_WINDOW = 65536; // bytes read ahead after the first sequential access
+    public final static int READ_AHEAD_MAX_WINDOW = 4 << 20; // largest read-ahead window in bytes
+
+    // Extractor constants
+    public final static int EXTRACT_MAX_IN_FLIGHT = 64; // files copied at the same time
+    public final static int EXTRACT_PLATFORM_THREADS = 16; // threads used when virtual threads are not available
+
+    // Find constants
+    public final static long FIND_DAY = 24 * 60 * 60 * SECOND; // unit of -mtime
+    public final static long FIND_KIB = 1024; // size suffixes k, M and G are powers of 1024
+
+    // Block map constants
+    public final static int BLOCK_MAP_INITIAL_EXTENTS = 4;
     
     // Directory constants
     public final static int DIRECTORY_MIN_SIZE = 12;
+    public final static int DIRECTORY_RECORD_LENGTH_OFFSET = 4;
+    public final static int DIRECTORY_NAME_LENGTH_OFFSET = 6;
+    public final static int DIRECTORY_FILE_TYPE_OFFSET = 7;
+    public final static int DIRECTORY_NAME_OFFSET = 8;
+    public final static int DIRECTORY_INDEX_INITIAL_SLOTS = 16; // must be a power of two
+    public final static int DIRECTORY_LISTING_PERMISSION_BITS = 9; // rwx for user, group and others
+    public final static int DIRECTORY_LISTING_HARD_LINKS_WIDTH = 2; // minimum column widths of ls rows
+    public final static int DIRECTORY_LISTING_ID_WIDTH = 4;
+    public final static long DIRECTORY_LISTING_MINUTE = 60 * SECOND; // listed dates have minute precision
+    public final static int DIRECTORY_LISTING_INITIAL_ROWS = 64;
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+/**
+ * Class for iterating over the allocated byte ranges of a file, like repeated lseek with SEEK_DATA and SEEK_HOLE.
+ * Ranges are built from the file's block map, so holes are skipped without reading or materializing them.
+ * Adjacent allocated blocks form a single range even if they are not physically contiguous.
+ */
+public class DataRangeCursor
+{
+    private final Ext2File file;
+    private long position = 0;
+    private long start = -1;
+    private long end = -1;
+
+    /**
+     * Create DataRangeCursor positioned before the first range of a file
+     * @param file Ext2File
+     */
+    public DataRangeCursor(Ext2File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Moves to the next allocated range
+     * @return False if there are no more ranges
+     */
+    public boolean next()
+    {
+        start = file.seekData(position);
+        if(start < 0)
+        {
+            end = -1;
+            position = file.size();
+            return false;
+        }
+        end = file.seekHole(start);
+        position = end;
+        return true;
+    }
+
+    /**
+     * Gets start of the current range
+     * @return Offset of the first byte of the range
+     */
+    public long getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Gets end of the current range
+     * @return Offset after the last byte of the range
+     */
+    public long getEnd()
+    {
+        return end;
+    }
+
+    /**
+     * Gets length of the current range
+     * @return Length in bytes
+     */
+    public long getLength()
+    {
+        return end - start;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class for caching directory entry lookups shared by all Directories of a Volume.
+ * Maps a parent directory inode and a file name to the inode of the file.
+ * Failed lookups are cached as well, with inode number 0.
+ * Entries are evicted in least recently used order.
+ * All methods are synchronized, so the cache can be shared by several threads.
+ */
+public class DentryCache
+{
+    private final int capacity;
+    private final LinkedHashMap<Key, Integer> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Create DentryCache
+     * @param capacity Maximum number of entries kept in the cache, 0 disables caching
+     */
+    public DentryCache(int capacity)
+    {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Integer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest)
+            {
+                return size() > DentryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets cached inode number of a file and counts a hit or a miss
+     * @param parent Inode number of the parent directory
+     * @param name File name
+     * @return Inode number, 0 if the file is known not to exist, null if the lookup is not cached
+     */
+    public synchronized Integer get(int parent, String name)
+    {
+        Integer inode = entries.get(new Key(parent, name));
+        if(inode == null)
+            misses++;
+        else
+            hits++;
+        return inode;
+    }
+
+    /**
+     * Saves the result of a lookup in the cache
+     * @param parent Inode number of the parent directory
+     * @param name File name
+     * @param inode Inode number, 0 if the file does not exist
+     */
+    public synchronized void put(int parent, String name, int inode)
+    {
+        if(capacity > 0)
+            entries.put(new Key(parent, name), inode);
+    }
+
+    /**
+     * Removes all entries from the cache and resets the counters
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Gets number of entries currently in the cache
+     * @return Number of entries currently in the cache
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Gets number of lookups served from the cache
+     * @return Number of cache hits
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Gets number of lookups that had to read the directory
+     * @return Number of cache misses
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Inner class used as the cache key
+     */
+    private static class Key
+    {
+        private final int parent;
+        private final String name;
+
+        /**
+         * Create Key
+         * @param parent Inode number of the parent directory
+         * @param name File name
+         */
+        private Key(int parent, String name)
+        {
+            this.parent = parent;
+            this.name = name;
+        }
+
+        /**
+         * @param o Object to compare with
+         * @return True if o is a Key with the same parent and name
+         */
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof Key))
+                return false;
+            Key key = (Key)o;
+            return parent == key.parent && name.equals(key.name);
+        }
+
+        /**
+         * @return Hash of parent and name
+         */
+        @Override
+        public int hashCode()
+        {
+            return 31 * parent + name.hashCode();
+        }
+    }
+}
\ No newline at end of file
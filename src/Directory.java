@@ -1,4 +1,4 @@
-import java.nio.ByteBuffer;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -8,15 +8,15 @@ import java.util.ArrayList;
 public class Directory
 {
     private final Volume vol;
-    private ByteBuffer dataBlock;
     private Inode inode;
+    private int inodeNumber = Constants.INODE_ROOT;
     private String targetPath;
     private String currentPath = "/";
     private String nextPath;
     private FileInfo fileInfo;
     private String previousPath;
     private boolean found = false;
-    private ArrayList<DirectoryEntry> directoryEntries = new ArrayList<DirectoryEntry>();
+    private DirectoryCursor cursor;
 
     /**
      * Gets and saves directory data at specified path in volume
@@ -32,95 +32,109 @@ public class Directory
 
         inode = vol.getInode(Constants.INODE_ROOT);
         fileInfo = new FileInfo(inode, vol);
-        dataBlock = fileInfo.getNextUsefulBlock();
 
         traverse();
     }
 
+    /**
+     * Opens the directory with a known inode number directly, without walking its path
+     * @param vol Volume
+     * @param inodeNumber Inode number of the directory
+     * @param path Directory path, ending with '/'
+     */
+    public Directory(Volume vol, int inodeNumber, String path)
+    {
+        this.vol = vol;
+        this.inodeNumber = inodeNumber;
+        this.targetPath = path;
+        this.currentPath = path;
+        this.nextPath = path;
+
+        inode = vol.getInode(inodeNumber);
+        fileInfo = new FileInfo(inode, vol);
+        found = true;
+    }
+
     /**
      * Traverses through directories to find the directory at specified path
      */
     private void traverse()
     {
         found = false;
-        getDirectoryEntries();
         getNextPath();
-        for(DirectoryEntry entry : directoryEntries)
+
+        int entryInode = lookup(nextPath);
+        if(entryInode != 0 && vol.getInode(entryInode).isDir())
         {
-            if(entry.fileName.equals(nextPath) && (entry.fileType == Constants.INODE_FILE_TYPE_DIRECTORY || vol.getInode(entry.inode).isDir()))
-            {
-                found = true;
+            found = true;
 
-                inode = vol.getInode(entry.inode);
-                fileInfo = new FileInfo(inode, vol);
-                fileInfo.resetCurrentBlock();
-                dataBlock = fileInfo.getNextUsefulBlock();
+            inodeNumber = entryInode;
+            inode = vol.getInode(entryInode);
+            fileInfo = new FileInfo(inode, vol);
 
-                if(nextPath.equals(".."))
+            if(nextPath.equals(".."))
+            {
+                if(currentPath.length()>1)
+                    currentPath = currentPath.substring(0, currentPath.length()-1);
+                for(int i = currentPath.length()-1;i>=0;i--)
                 {
-                    if(currentPath.length()>1)
-                        currentPath = currentPath.substring(0, currentPath.length()-1);
-                    for(int i = currentPath.length()-1;i>=0;i--)
+                    if(currentPath.charAt(i) == '/')
                     {
-                        if(currentPath.charAt(i) == '/')
-                        {
-                            currentPath = currentPath.substring(0, i+1);
-                            break;
-                        }
+                        currentPath = currentPath.substring(0, i+1);
+                        break;
                     }
-                    break;
-                }
-                if(nextPath.equals("."))
-                {
-                    found = true;
-                    break;
                 }
+            }
+            else if(!nextPath.equals("."))
+            {
                 currentPath += nextPath + "/";
                 if(!currentPath.equals(targetPath)) 
                     traverse();
-                break;
             }
         }
-        fileInfo.resetCurrentBlock();
-        dataBlock = fileInfo.getNextUsefulBlock();
     }
 
     /**
-     * Saves all directory entries in an array
+     * Looks up a file name in this directory through the Volume directory entry cache.
+     * On a cache miss the name is looked up in the directory's name index, which is built
+     * from the directory entries the first time the directory is searched.
+     * The result, found or not, is cached.
+     * @param name File name
+     * @return Inode number of the file, 0 if there is no such file
      */
-    private void getDirectoryEntries()
+    private int lookup(String name)
     {
-        directoryEntries.clear();
-        int inode;
-        int length;
-        int nameLength;
-        int fileType;
-        int position = 0;
-        
-        dataBlock.position(position);
+        DentryCache dentryCache = vol.getDentryCache();
+        Integer cached = dentryCache.get(inodeNumber, name);
+        if(cached != null)
+            return cached;
 
-        while(fileInfo.getCurrentBlock() != fileInfo.getNumUsefulBlocks()-1 || dataBlock.remaining()>=12)
+        DirectoryIndex directoryIndex = vol.getDirectoryIndex(inodeNumber);
+        if(directoryIndex == null)
         {
-            inode = dataBlock.getInt();
-            length = dataBlock.getChar();
-            nameLength = dataBlock.get();
-            fileType = dataBlock.get();
-            byte[] fileName = new byte[nameLength];
-            for(int i = 0;i<nameLength;i++)
-            {
-                fileName[i] = dataBlock.get();
-            }
-            if(nameLength!=0 && inode != 0 && nameLength != 0)
-                directoryEntries.add(new DirectoryEntry(inode, length, nameLength, fileType, fileName));
-            position = position+length;
-            dataBlock.position(position);
-            if(dataBlock.remaining()<=Constants.DIRECTORY_MIN_SIZE && this.fileInfo.getCurrentBlock() != fileInfo.getNumUsefulBlocks()-1)
-            {
-                dataBlock = fileInfo.getNextUsefulBlock();
-                position = 0;
-                dataBlock.position(0);
-            }
+            directoryIndex = new DirectoryIndex();
+            DirectoryCursor entries = getCursor();
+            while(entries.next())
+                directoryIndex.add(entries.getBlock(), entries.getNameOffset(), entries.getNameLength(), entries.getInode());
+            vol.putDirectoryIndex(inodeNumber, directoryIndex);
         }
+
+        int entryInode = directoryIndex.get(name);
+        dentryCache.put(inodeNumber, name, entryInode);
+        return entryInode;
+    }
+
+    /**
+     * Positions the directory's cursor before its first entry
+     * @return DirectoryCursor over the entries of this directory
+     */
+    public DirectoryCursor getCursor()
+    {
+        if(cursor == null)
+            cursor = new DirectoryCursor(fileInfo);
+        else
+            cursor.reset(fileInfo);
+        return cursor;
     }
 
     /**
@@ -140,6 +154,64 @@ public class Directory
         }
     }
     
+    /**
+     * Gets the inode number of any entry in this directory, file or directory
+     * @param name Entry name
+     * @return Inode number of the entry, 0 if there is no such entry
+     */
+    public int getEntryInode(String name)
+    {
+        return lookup(name);
+    }
+
+    /**
+     * Gets all entries of this directory, including "." and ".."
+     * @return List of directory entries
+     */
+    public ArrayList<DirectoryEntry> getEntries()
+    {
+        ArrayList<DirectoryEntry> entries = new ArrayList<DirectoryEntry>();
+        DirectoryCursor entry = getCursor();
+        while(entry.next())
+            entries.add(new DirectoryEntry(entry));
+        return entries;
+    }
+
+    /**
+     * Finds the inode of an absolute path in the volume, file or directory
+     * @param vol Volume
+     * @param path Absolute path
+     * @return Inode number, 0 if the path does not exist
+     */
+    public static int resolve(Volume vol, String path)
+    {
+        int inodeNumber = Constants.INODE_ROOT;
+        String dirPath = "/";
+
+        for(String name : path.split("/"))
+        {
+            if(name.isEmpty())
+                continue;
+            if(!vol.getInode(inodeNumber).isDir())
+                return 0;
+
+            inodeNumber = new Directory(vol, inodeNumber, dirPath).getEntryInode(name);
+            if(inodeNumber == 0)
+                return 0;
+            dirPath += name + "/";
+        }
+        return inodeNumber;
+    }
+
+    /**
+     * Gets inode number of this directory
+     * @return Inode number of this directory
+     */
+    public int getInodeNumber()
+    {
+        return inodeNumber;
+    }
+
     /**
      * Gets the inode number of file
      * @param file File name
@@ -147,21 +219,11 @@ public class Directory
      */
     public int getFileInode(String file)
     {
-        getDirectoryEntries();
-        for(DirectoryEntry entry : directoryEntries)
-        {
-            if((entry.fileName.equals(file)) && (entry.fileType == Constants.INODE_FILE_TYPE_FILE || vol.getInode(entry.inode).isDir()==false))
-            {
-                fileInfo.resetCurrentBlock();
-                dataBlock = fileInfo.getNextUsefulBlock();
-                return entry.inode;
-            }
-        }
-        System.out.println("Failed to find file");
-
-        fileInfo.resetCurrentBlock();
-        dataBlock = fileInfo.getNextUsefulBlock();
+        int entryInode = lookup(file);
+        if(entryInode != 0 && vol.getInode(entryInode).isDir()==false)
+            return entryInode;
 
+        System.out.println("Failed to find file");
         return 0;
     }
 
@@ -171,26 +233,26 @@ public class Directory
      */
     public String getFileInfo()
     {
-        String fileInfo = "";
-        long largestSize = 0;
-        getDirectoryEntries();
-
-        for(DirectoryEntry entry : directoryEntries)
-            if(vol.getInode(entry.inode).getSize()>largestSize)
-                largestSize = vol.getInode(entry.inode).getSize();
-
-        for(DirectoryEntry entry : directoryEntries)
+        StringBuilder fileInfo = new StringBuilder();
+        try
         {
-            fileInfo = fileInfo 
-            + vol.getInode(entry.inode).getFileModeString() + " "
-            + String.format("%1$2d", vol.getInode(entry.inode).gethardLinks()) + " " 
-            + String.format("%1$4d", vol.getInode(entry.inode).getOwnerId()) + " " 
-            + String.format("%1$4d", vol.getInode(entry.inode).getGroupId()) + " " 
-            + String.format("%1$"+ String.valueOf(largestSize).length() + "d", vol.getInode(entry.inode).getSize()) + " "
-            + vol.getInode(entry.inode).getLastModifiedDate() + 
-            " " + entry.fileName + "\n";
+            getFileInfo(fileInfo);
         }
-        return fileInfo;
+        catch(IOException e)
+        {
+            System.out.println(e);
+        }
+        return fileInfo.toString();
+    }
+
+    /**
+     * Writes the contents of directory in UNIX style, one row at a time
+     * @param out Appendable to write the rows to
+     * @throws IOException If out could not be written
+     */
+    public void getFileInfo(Appendable out) throws IOException
+    {
+        new DirectoryListing(vol).write(getCursor(), out);
     }
 
     /**
@@ -211,9 +273,9 @@ public class Directory
             targetPath = target;
             nextPath = targetPath;
 
+            inodeNumber = Constants.INODE_ROOT;
             inode = vol.getInode(Constants.INODE_ROOT);
             fileInfo = new FileInfo(inode, vol);
-            dataBlock = fileInfo.getNextUsefulBlock();
 
             if(!target.equals("/"))
                 traverse();
@@ -232,9 +294,9 @@ public class Directory
             currentPath = "/";
             targetPath = previousPath;
 
+            inodeNumber = Constants.INODE_ROOT;
             inode = vol.getInode(Constants.INODE_ROOT);
             fileInfo = new FileInfo(inode, vol);
-            dataBlock = fileInfo.getNextUsefulBlock();
 
             System.out.println("Failed to find directory");
 
@@ -252,10 +314,9 @@ public class Directory
     }
 
     /**
-     * Inner class to save Directory Entries
-     * No getters/setters needed, since this is a private Inner class 
+     * Nested class to save Directory Entries
      */
-    private class DirectoryEntry
+    public static class DirectoryEntry
     {
         final private int inode;
         final private int length;
@@ -264,20 +325,43 @@ public class Directory
         final private String fileName;
 
         /**
-         * Create a Directory Entry
-         * @param inode File inode
-         * @param length Entry length
-         * @param nameLength File name length
-         * @param fileType File type
-         * @param filename File name
+         * Create a Directory Entry from the current entry of a cursor
+         * @param cursor DirectoryCursor positioned on the entry
+         */
+        private DirectoryEntry(DirectoryCursor cursor)
+        {
+            this.inode = cursor.getInode();
+            this.length = cursor.getRecordLength();
+            this.nameLength = cursor.getNameLength();
+            this.fileType = cursor.getFileType();
+            this.fileName = cursor.getName();
+        }
+
+        /**
+         * Gets inode number of the entry
+         * @return Inode number
+         */
+        public int getInode()
+        {
+            return inode;
+        }
+
+        /**
+         * Gets file type stored in the entry
+         * @return File type
+         */
+        public int getFileType()
+        {
+            return fileType;
+        }
+
+        /**
+         * Gets file name of the entry
+         * @return File name
          */
-        private DirectoryEntry(int inode, int length, int nameLength, int fileType, byte[] filename)
+        public String getFileName()
         {
-            this.inode = inode;
-            this.length = length;
-            this.nameLength = nameLength;
-            this.fileType = fileType;
-            this.fileName = new String(filename);
+            return fileName;
         }
     }
 
@@ -0,0 +1,216 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class for iterating over the entries of a directory without allocating per entry.
+ * The cursor walks the raw directory blocks and exposes the fields of the current entry,
+ * with the name given as an offset and length into the current block buffer.
+ * Names are only decoded when asked for and can be compared byte by byte.
+ */
+public class DirectoryCursor
+{
+    private static final byte[] DOT = {'.'};
+    private static final byte[] DOT_DOT = {'.', '.'};
+
+    private FileInfo fileInfo;
+    private ByteBuffer block;
+    private int blocksLeft;
+    private int position;
+
+    private int inode;
+    private int recordLength;
+    private int nameLength;
+    private int fileType;
+    private int nameOffset;
+
+    /**
+     * Create DirectoryCursor positioned before the first entry of a directory
+     * @param fileInfo FileInfo of the directory
+     */
+    public DirectoryCursor(FileInfo fileInfo)
+    {
+        reset(fileInfo);
+    }
+
+    /**
+     * Positions the cursor before the first entry of a directory
+     * @param fileInfo FileInfo of the directory
+     */
+    public void reset(FileInfo fileInfo)
+    {
+        this.fileInfo = fileInfo;
+        fileInfo.resetCurrentBlock();
+        blocksLeft = fileInfo.getNumUsefulBlocks();
+        block = null;
+        position = 0;
+        inode = 0;
+    }
+
+    /**
+     * Positions the cursor before the first entry again
+     */
+    public void rewind()
+    {
+        reset(fileInfo);
+    }
+
+    /**
+     * Moves to the next entry in use, skipping deleted entries and padding
+     * @return False if there are no more entries
+     */
+    public boolean next()
+    {
+        while(true)
+        {
+            if(block == null || block.limit() - position < Constants.DIRECTORY_MIN_SIZE)
+            {
+                if(blocksLeft == 0)
+                {
+                    inode = 0;
+                    return false;
+                }
+                block = fileInfo.getNextUsefulBlock();
+                blocksLeft--;
+                position = 0;
+            }
+
+            int entry = position;
+            inode = block.getInt(entry);
+            recordLength = block.getChar(entry + Constants.DIRECTORY_RECORD_LENGTH_OFFSET);
+            nameLength = block.get(entry + Constants.DIRECTORY_NAME_LENGTH_OFFSET) & 0xff;
+            fileType = block.get(entry + Constants.DIRECTORY_FILE_TYPE_OFFSET) & 0xff;
+            nameOffset = entry + Constants.DIRECTORY_NAME_OFFSET;
+
+            if(recordLength < Constants.DIRECTORY_MIN_SIZE || nameOffset + nameLength > block.limit())
+            {
+                position = block.limit();
+                continue;
+            }
+            position += recordLength;
+
+            if(inode != 0 && nameLength != 0)
+                return true;
+        }
+    }
+
+    /**
+     * Gets inode number of the current entry
+     * @return Inode number
+     */
+    public int getInode()
+    {
+        return inode;
+    }
+
+    /**
+     * Gets record length of the current entry
+     * @return Record length in bytes
+     */
+    public int getRecordLength()
+    {
+        return recordLength;
+    }
+
+    /**
+     * Gets file type stored in the current entry
+     * @return File type
+     */
+    public int getFileType()
+    {
+        return fileType;
+    }
+
+    /**
+     * Gets the block buffer holding the current entry
+     * @return Block buffer, valid until the cursor moves to another block
+     */
+    public ByteBuffer getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Gets offset of the current entry's name in the block buffer
+     * @return Name offset
+     */
+    public int getNameOffset()
+    {
+        return nameOffset;
+    }
+
+    /**
+     * Gets length of the current entry's name
+     * @return Name length in bytes
+     */
+    public int getNameLength()
+    {
+        return nameLength;
+    }
+
+    /**
+     * Compares the current entry's name with a name byte by byte
+     * @param name Array holding the name
+     * @param offset Start of the name in the array
+     * @param length Length of the name
+     * @return True if the names are equal
+     */
+    public boolean nameEquals(byte[] name, int offset, int length)
+    {
+        if(length != nameLength)
+            return false;
+        for(int i = 0;i<length;i++)
+        {
+            if(block.get(nameOffset + i) != name[offset + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the current entry is "." or ".."
+     * @return True if the current entry is "." or ".."
+     */
+    public boolean isDotEntry()
+    {
+        return nameEquals(DOT, 0, DOT.length) || nameEquals(DOT_DOT, 0, DOT_DOT.length);
+    }
+
+    /**
+     * Copies the current entry's name into an array
+     * @param name Array with room for getNameLength bytes after offset
+     * @param offset Position in the array to copy the name to
+     */
+    public void copyName(byte[] name, int offset)
+    {
+        block.get(nameOffset, name, offset, nameLength);
+    }
+
+    /**
+     * Decodes the current entry's name
+     * @return File name
+     */
+    public String getName()
+    {
+        byte[] name = new byte[nameLength];
+        copyName(name, 0);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the current entry's name to a StringBuilder.
+     * ASCII names are appended without decoding, other names are decoded as UTF-8.
+     * @param out StringBuilder to append to
+     * @return out
+     */
+    public StringBuilder appendName(StringBuilder out)
+    {
+        for(int i = 0;i<nameLength;i++)
+        {
+            if(block.get(nameOffset + i) < 0)
+                return out.append(getName());
+        }
+        for(int i = 0;i<nameLength;i++)
+            out.append((char)block.get(nameOffset + i));
+        return out;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class for looking up directory entries by name in constant time.
+ * Names are kept as bytes in a single array and indexed by an open addressing hash table
+ * with linear probing, so large directories need only a few primitive arrays.
+ */
+public class DirectoryIndex
+{
+    private int[] slots = new int[Constants.DIRECTORY_INDEX_INITIAL_SLOTS];
+    private int[] hashes = new int[Constants.DIRECTORY_INDEX_INITIAL_SLOTS / 2];
+    private int[] nameOffset = new int[Constants.DIRECTORY_INDEX_INITIAL_SLOTS / 2];
+    private int[] nameLength = new int[Constants.DIRECTORY_INDEX_INITIAL_SLOTS / 2];
+    private int[] inodes = new int[Constants.DIRECTORY_INDEX_INITIAL_SLOTS / 2];
+    private byte[] names = new byte[Constants.DIRECTORY_INDEX_INITIAL_SLOTS * 8];
+    private int namesLength = 0;
+    private int size = 0;
+
+    /**
+     * Adds a directory entry to the index
+     * @param name Array holding the file name
+     * @param offset Start of the file name in the array
+     * @param length Length of the file name
+     * @param inode Inode number of the file
+     */
+    public void add(byte[] name, int offset, int length, int inode)
+    {
+        if((size + 1) * 2 > slots.length)
+            grow();
+
+        if(namesLength + length > names.length)
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + length));
+        System.arraycopy(name, offset, names, namesLength, length);
+
+        int hash = hash(name, offset, length);
+        hashes[size] = hash;
+        nameOffset[size] = namesLength;
+        nameLength[size] = length;
+        inodes[size] = inode;
+        namesLength += length;
+        size++;
+
+        insert(hash, size);
+    }
+
+    /**
+     * Adds a directory entry to the index, copying the name straight from a directory block
+     * @param block Buffer holding the file name
+     * @param offset Index of the file name in the buffer
+     * @param length Length of the file name
+     * @param inode Inode number of the file
+     */
+    public void add(ByteBuffer block, int offset, int length, int inode)
+    {
+        if((size + 1) * 2 > slots.length)
+            grow();
+
+        if(namesLength + length > names.length)
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + length));
+        block.get(offset, names, namesLength, length);
+
+        int hash = hash(names, namesLength, length);
+        hashes[size] = hash;
+        nameOffset[size] = namesLength;
+        nameLength[size] = length;
+        inodes[size] = inode;
+        namesLength += length;
+        size++;
+
+        insert(hash, size);
+    }
+
+    /**
+     * Gets inode number of a file
+     * @param name Array holding the file name
+     * @param offset Start of the file name in the array
+     * @param length Length of the file name
+     * @return Inode number of the file, 0 if there is no such file
+     */
+    public int get(byte[] name, int offset, int length)
+    {
+        int hash = hash(name, offset, length);
+        int mask = slots.length - 1;
+
+        for(int slot = hash & mask;slots[slot] != 0;slot = (slot + 1) & mask)
+        {
+            int entry = slots[slot] - 1;
+            if(hashes[entry] == hash && nameLength[entry] == length
+                && Arrays.equals(names, nameOffset[entry], nameOffset[entry] + length, name, offset, offset + length))
+                return inodes[entry];
+        }
+        return 0;
+    }
+
+    /**
+     * Gets inode number of a file
+     * @param name File name
+     * @return Inode number of the file, 0 if there is no such file
+     */
+    public int get(String name)
+    {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return get(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Gets number of entries in the index
+     * @return Number of entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Puts an entry into the first free slot of its probe sequence
+     * @param hash Hash of the entry name
+     * @param entry Entry index plus one
+     */
+    private void insert(int hash, int entry)
+    {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while(slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = entry;
+    }
+
+    /**
+     * Doubles the hash table and entry arrays and re-inserts all entries
+     */
+    private void grow()
+    {
+        slots = new int[slots.length * 2];
+        hashes = Arrays.copyOf(hashes, slots.length / 2);
+        nameOffset = Arrays.copyOf(nameOffset, slots.length / 2);
+        nameLength = Arrays.copyOf(nameLength, slots.length / 2);
+        inodes = Arrays.copyOf(inodes, slots.length / 2);
+
+        for(int i = 0;i<size;i++)
+            insert(hashes[i], i + 1);
+    }
+
+    /**
+     * Calculates FNV-1a hash of a file name
+     * @param name Array holding the file name
+     * @param offset Start of the file name in the array
+     * @param length Length of the file name
+     * @return Hash of the file name
+     */
+    private static int hash(byte[] name, int offset, int length)
+    {
+        int hash = 0x811c9dc5;
+        for(int i = offset;i<offset + length;i++)
+        {
+            hash ^= name[i] & 0xff;
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class for writing the contents of a directory in UNIX ls -l style.
+ * A first pass over the directory reads every inode once into primitive columns and computes the column widths,
+ * a second pass writes the rows one by one to an Appendable, taking names straight from the directory blocks.
+ * Permission strings come from a static table and dates are formatted once per distinct minute.
+ */
+public class DirectoryListing
+{
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm").withZone(ZoneId.systemDefault());
+    private static final String[] PERMISSIONS = new String[2 << Constants.DIRECTORY_LISTING_PERMISSION_BITS];
+
+    static
+    {
+        char[] mode = new char[Constants.DIRECTORY_LISTING_PERMISSION_BITS + 1];
+        char[] letters = {'r', 'w', 'x'};
+        for(int i = 0;i<PERMISSIONS.length;i++)
+        {
+            mode[0] = (i >> Constants.DIRECTORY_LISTING_PERMISSION_BITS) != 0 ? 'd' : '-';
+            for(int bit = 0;bit<Constants.DIRECTORY_LISTING_PERMISSION_BITS;bit++)
+            {
+                boolean set = (i & (1 << (Constants.DIRECTORY_LISTING_PERMISSION_BITS - 1 - bit))) != 0;
+                mode[bit + 1] = set ? letters[bit % letters.length] : '-';
+            }
+            PERMISSIONS[i] = new String(mode);
+        }
+    }
+
+    private final Volume vol;
+    private final HashMap<Long, String> dates = new HashMap<Long, String>();
+
+    /**
+     * Create DirectoryListing
+     * @param vol Volume the listed directories belong to
+     */
+    public DirectoryListing(Volume vol)
+    {
+        this.vol = vol;
+    }
+
+    /**
+     * Writes one row per entry: permissions, hard links, owner, group, size, date and name
+     * @param entries DirectoryCursor over the entries, in the order they are listed
+     * @param out Appendable to write the listing to
+     * @throws IOException If out could not be written
+     */
+    public void write(DirectoryCursor entries, Appendable out) throws IOException
+    {
+        int capacity = Constants.DIRECTORY_LISTING_INITIAL_ROWS;
+        int[] mode = new int[capacity];
+        int[] hardLinks = new int[capacity];
+        int[] ownerId = new int[capacity];
+        int[] groupId = new int[capacity];
+        long[] size = new long[capacity];
+        long[] lastModified = new long[capacity];
+
+        int hardLinksWidth = Constants.DIRECTORY_LISTING_HARD_LINKS_WIDTH;
+        int ownerIdWidth = Constants.DIRECTORY_LISTING_ID_WIDTH;
+        int groupIdWidth = Constants.DIRECTORY_LISTING_ID_WIDTH;
+        int sizeWidth = 1;
+
+        int count = 0;
+        while(entries.next())
+        {
+            if(count == capacity)
+            {
+                capacity *= 2;
+                mode = Arrays.copyOf(mode, capacity);
+                hardLinks = Arrays.copyOf(hardLinks, capacity);
+                ownerId = Arrays.copyOf(ownerId, capacity);
+                groupId = Arrays.copyOf(groupId, capacity);
+                size = Arrays.copyOf(size, capacity);
+                lastModified = Arrays.copyOf(lastModified, capacity);
+            }
+
+            int i = count++;
+            Inode inode = vol.getInode(entries.getInode());
+            mode[i] = (inode.isDir() ? 1 << Constants.DIRECTORY_LISTING_PERMISSION_BITS : 0)
+                | (inode.getFileMode() & ((1 << Constants.DIRECTORY_LISTING_PERMISSION_BITS) - 1));
+            hardLinks[i] = inode.gethardLinks();
+            ownerId[i] = inode.getOwnerId();
+            groupId[i] = inode.getGroupId();
+            size[i] = inode.getSize();
+            lastModified[i] = inode.getLastModifiedTime();
+
+            hardLinksWidth = Math.max(hardLinksWidth, digits(hardLinks[i]));
+            ownerIdWidth = Math.max(ownerIdWidth, digits(ownerId[i]));
+            groupIdWidth = Math.max(groupIdWidth, digits(groupId[i]));
+            sizeWidth = Math.max(sizeWidth, digits(size[i]));
+        }
+
+        StringBuilder row = new StringBuilder();
+        entries.rewind();
+        for(int i = 0;i<count && entries.next();i++)
+        {
+            row.setLength(0);
+            row.append(PERMISSIONS[mode[i]]).append(' ');
+            appendPadded(row, hardLinks[i], hardLinksWidth).append(' ');
+            appendPadded(row, ownerId[i], ownerIdWidth).append(' ');
+            appendPadded(row, groupId[i], groupIdWidth).append(' ');
+            appendPadded(row, size[i], sizeWidth).append(' ');
+            row.append(getDate(lastModified[i])).append(' ');
+            entries.appendName(row).append('\n');
+            out.append(row);
+        }
+    }
+
+    /**
+     * Gets the formatted date of a time, formatting each distinct minute only once
+     * @param time Time in milliseconds since the epoch
+     * @return Formatted date
+     */
+    private String getDate(long time)
+    {
+        long minute = Math.floorDiv(time, Constants.DIRECTORY_LISTING_MINUTE);
+        String date = dates.get(minute);
+        if(date == null)
+        {
+            date = formatter.format(Instant.ofEpochMilli(time));
+            dates.put(minute, date);
+        }
+        return date;
+    }
+
+    /**
+     * Appends a non-negative number right-aligned to width
+     * @param row StringBuilder to append to
+     * @param number Number
+     * @param width Column width
+     * @return row
+     */
+    private static StringBuilder appendPadded(StringBuilder row, long number, int width)
+    {
+        for(int i = digits(number);i<width;i++)
+            row.append(' ');
+        return row.append(number);
+    }
+
+    /**
+     * Counts the decimal digits of a non-negative number
+     * @param number Number
+     * @return Number of digits
+     */
+    private static int digits(long number)
+    {
+        int digits = 1;
+        while(number >= 10)
+        {
+            number /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
\ No newline at end of file
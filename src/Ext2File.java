@@ -1,4 +1,14 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Class for retrieving storing file data.
@@ -6,10 +16,9 @@ import java.nio.ByteBuffer;
  */
 public class Ext2File
 {
-    private ByteBuffer dataBlock;
+    private final Volume vol;
     private final Inode inode;
     private final String targetPath;
-    private final int trueSize;
     private FileInfo fileInfo;
     private long position = 0;
 
@@ -20,22 +29,36 @@ public class Ext2File
      */
     public Ext2File(Volume vol, String targetPath)
     {
+        this.vol = vol;
         this.targetPath = targetPath;
         Directory directory = new Directory(vol, getDirectoryPath());
-        if(directory.getFileInode(getFileName())!=0)
+        int fileInode = directory.getFileInode(getFileName());
+        if(fileInode!=0)
         {
-            inode = vol.getInode(directory.getFileInode(getFileName()));
+            inode = vol.getInode(fileInode);
             fileInfo = new FileInfo(inode, vol);
-            trueSize = fileInfo.getTrueSize();
         }
         else
         {
             inode = null;
             fileInfo = null;
-            trueSize = 0;
         }
     }
 
+    /**
+     * Opens the file with a known inode number directly, without walking its path
+     * @param vol Volume
+     * @param inodeNumber Inode number of the file
+     * @param targetPath File path
+     */
+    public Ext2File(Volume vol, int inodeNumber, String targetPath)
+    {
+        this.vol = vol;
+        this.targetPath = targetPath;
+        this.inode = vol.getInode(inodeNumber);
+        this.fileInfo = new FileInfo(inode, vol);
+    }
+
     /**
      * Gets path of the directory target file is in
      * @return Path of the directory target file is in
@@ -89,25 +112,36 @@ public class Ext2File
         if(length>Constants.INT_SIZE)
             throw new IllegalArgumentException("Array cannot be larger than maximum int size");
 
-        dataBlock = fileInfo.getBlock((int)(startByte/Constants.BLOCK_SIZE));
-        dataBlock.position((int)(startByte-(fileInfo.getCurrentBlock()*1024)));
-
         byte[] arr = new byte[(int)length];
-
-        for(int i = 0;i<length;i++)
-        {
-            if(!dataBlock.hasRemaining())
-            {
-                dataBlock = fileInfo.getNextBlock();
-            }
-            arr[i] = dataBlock.get();
-        }
+        readInto(startByte, arr, 0, arr.length);
         
         return arr;
     }
 
+    /**
+     * Reads the target of a symbolic link.
+     * Targets shorter than Constants.INODE_FAST_LINK_SIZE bytes are stored in place of the inode's block pointers,
+     * longer ones in the link's data blocks.
+     * @return Link target
+     */
+    public String readLink()
+    {
+        int size = (int)size();
+        if(size >= Constants.INODE_FAST_LINK_SIZE)
+            return new String(read(0, size), StandardCharsets.UTF_8);
+
+        ByteBuffer pointers = ByteBuffer.allocate(Constants.INODE_FAST_LINK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for(long pointer : inode.getBlockpointer())
+            pointers.putInt((int)pointer);
+        pointers.putInt((int)inode.getIndirectPointer());
+        pointers.putInt((int)inode.getDoubleIndirectPointer());
+        pointers.putInt((int)inode.getTripleIndirectPointer());
+        return new String(pointers.array(), 0, size, StandardCharsets.UTF_8);
+    }
+
     /**
      * Reads length amount of bytes from file starting at current position
+     * and advances the position by the amount of bytes read
      * @param length The amount of bytes to be read
      * @return byte[]
      */
@@ -119,21 +153,175 @@ public class Ext2File
         if(length>Constants.INT_SIZE)
             throw new IllegalArgumentException("Array cannot be larger than maximum int size");
 
-        dataBlock = fileInfo.getBlock((int)(position/1024));
-        dataBlock.position((int)(position-(fileInfo.getCurrentBlock()*1024)));
-
         byte[] arr = new byte[(int)length];
+        readInto(position, arr, 0, arr.length);
+        position += arr.length;
+        
+        return arr;
+    }
+
+    /**
+     * Reads up to length bytes from file starting at byte startByte into an existing array
+     * @param startByte The position in file to start reading from
+     * @param arr Destination array
+     * @param offset The start offset in the destination array
+     * @param length The maximum amount of bytes to be read
+     * @return The amount of bytes read, -1 if startByte is at or past the end of file
+     */
+    public int read(long startByte, byte[] arr, int offset, int length)
+    {
+        if(startByte<0 || offset<0 || length<0 || length>arr.length-offset)
+            throw new IndexOutOfBoundsException();
+
+        if(startByte>=size())
+            return length == 0 ? 0 : -1;
+
+        if(length>size()-startByte)
+            length = (int)(size()-startByte);
+
+        readInto(startByte, arr, offset, length);
+        return length;
+    }
 
-        for(int i = 0;i<length;i++)
+    /**
+     * Opens an InputStream over the file contents, starting at the current position
+     * @return InputStream reading the file
+     */
+    public InputStream getInputStream()
+    {
+        return new Ext2InputStream(this, position);
+    }
+
+    /**
+     * Opens a read-only SeekableByteChannel over the file contents, starting at the current position
+     * @return SeekableByteChannel reading the file
+     */
+    public SeekableByteChannel getChannel()
+    {
+        return new Ext2FileChannel(this, position);
+    }
+
+    /**
+     * Opens a cursor over the allocated byte ranges of the file, holes are skipped
+     * @return DataRangeCursor over the file
+     */
+    public DataRangeCursor getDataRanges()
+    {
+        return new DataRangeCursor(this);
+    }
+
+    /**
+     * Finds the start of the first data at or after an offset, like lseek with SEEK_DATA
+     * @param offset Offset in file
+     * @return Offset of the first allocated byte at or after offset, -1 if there is no more data
+     */
+    public long seekData(long offset)
+    {
+        if(offset < 0 || offset >= size())
+            return -1;
+
+        int blockSize = vol.getBlockSize();
+        long block = fileInfo.seekData(offset / blockSize);
+        if(block < 0 || block * blockSize >= size())
+            return -1;
+        return Math.max(offset, block * blockSize);
+    }
+
+    /**
+     * Finds the start of the first hole at or after an offset, like lseek with SEEK_HOLE.
+     * The end of the file counts as a hole.
+     * @param offset Offset in file
+     * @return Offset of the first byte of a hole at or after offset, the file size if there is none, -1 if offset is past the end
+     */
+    public long seekHole(long offset)
+    {
+        if(offset < 0 || offset >= size())
+            return -1;
+
+        int blockSize = vol.getBlockSize();
+        long block = fileInfo.seekHole(offset / blockSize);
+        return Math.min(size(), Math.max(offset, block * blockSize));
+    }
+
+    /**
+     * Checks if the file has holes, blocks inside the file size that are not allocated
+     * @return True if the file is sparse
+     */
+    public boolean isSparse()
+    {
+        return size() > 0 && seekHole(0) < size();
+    }
+
+    /**
+     * Turns on read-ahead of the file on the Volume's read-ahead executor.
+     * Sequential reads then prefetch the following blocks in the background.
+     */
+    public void enableReadAhead()
+    {
+        enableReadAhead(vol.getReadAheadExecutor());
+    }
+
+    /**
+     * Turns on read-ahead of the file on a specified executor
+     * @param executor Executor to prefetch blocks on
+     */
+    public void enableReadAhead(ExecutorService executor)
+    {
+        fileInfo.setReadAhead(new ReadAhead(vol, fileInfo, executor));
+    }
+
+    /**
+     * Turns off read-ahead of the file, cancelling any prefetch in progress
+     */
+    public void disableReadAhead()
+    {
+        fileInfo.setReadAhead(null);
+    }
+
+    /**
+     * Copies file bytes into an array one physical run at a time.
+     * Consecutive physical blocks are read from the volume with a single read straight into arr,
+     * a run of empty blocks is zero-filled in one go. With read-ahead on, bytes are copied from the prefetched windows instead.
+     * @param startByte The position in file to start reading from
+     * @param arr Destination array
+     * @param offset The start offset in the destination array
+     * @param length The amount of bytes to be read
+     */
+    private void readInto(long startByte, byte[] arr, int offset, int length)
+    {
+        if(fileInfo.getReadAhead() != null)
+        {
+            fileInfo.getReadAhead().read(startByte, arr, offset, length);
+            return;
+        }
+
+        int blockSize = vol.getBlockSize();
+        long filePosition = startByte;
+        int copied = 0;
+
+        while(copied < length)
         {
-            if(!dataBlock.hasRemaining())
+            long block = filePosition / blockSize;
+            int blockOffset = (int)(filePosition % blockSize);
+            int run = fileInfo.getRunLength(block);
+            long available;
+            if(run != 0)
+                available = (long)run * blockSize - blockOffset;
+            else
             {
-                dataBlock = fileInfo.getNextBlock();
+                long lastBlock = (filePosition + length - copied - 1) / blockSize;
+                available = (fileInfo.nextData(block, lastBlock + 1) - block) * blockSize - blockOffset;
             }
-            arr[i] = dataBlock.get();
+            int amount = (int)Math.min(length - copied, available);
+
+            if(run != 0)
+                vol.readBytes(fileInfo.getBlockPointer(block) * blockSize + blockOffset, arr, offset + copied, amount);
+            else
+                Arrays.fill(arr, offset + copied, offset + copied + amount, (byte)0);
+
+            copied += amount;
+            filePosition += amount;
         }
-        
-        return arr;
     }
 
     /**
@@ -157,6 +345,15 @@ public class Ext2File
         return position;
     }
 
+    /**
+     * Checks if the file was found in the volume
+     * @return True if the file exists
+     */
+    public boolean exists()
+    {
+        return inode != null;
+    }
+
     /**
      * Gets file size
      * @return File size
@@ -167,37 +364,136 @@ public class Ext2File
     }
 
     /**
-     * Print out the contents of the file
+     * Print out the contents of the file, byte for byte, to System.out
      */
     public void print()
     {
         if(inode!=null)
         {
-            int length = trueSize;
-            byte[] arr = new byte[1024];
+            try
+            {
+                writeTo(System.out);
+                System.out.flush();
+            }
+            catch(IOException e)
+            {
+                System.out.println(e);
+            }
+        }
+    }
 
-            fileInfo.resetCurrentBlock();
-            dataBlock = fileInfo.getNextUsefulBlock();
+    /**
+     * Transfers the whole file into a channel, one physical run at a time.
+     * Runs of at least Constants.FILE_TRANSFER_MIN_RUN bytes go from the image's FileChannel straight to target
+     * with transferTo; shorter, fragmented runs are gathered into a buffer and written with one write.
+     * Holes are skipped when target is a FileChannel, leaving holes in the destination file, and written as zeros otherwise.
+     * @param target Channel to write the file to, starting at its current position
+     * @return Number of bytes of the file written, holes included
+     * @throws IOException If target could not be written
+     */
+    public long transferTo(WritableByteChannel target) throws IOException
+    {
+        int blockSize = vol.getBlockSize();
+        long size = size();
+        long start = target instanceof FileChannel ? ((FileChannel)target).position() : 0;
+        byte[] buffer = null;
 
-            for(int i = 0;i<length;i++)
+        long filePosition = 0;
+        while(filePosition < size)
+        {
+            long block = filePosition / blockSize;
+            int run = fileInfo.getRunLength(block);
+            if(run == 0)
             {
-                if(i == 1024)
-                {
-                    System.out.print(new String(arr).trim());
-                    i-=1024;
-                    length-=1024;
-                    arr = new byte[1024];
-                }
-
-                if(!dataBlock.hasRemaining())
-                    dataBlock = fileInfo.getNextBlock();
+                long holeEnd = Math.min(size, fileInfo.nextData(block, fileInfo.getBlockNo()) * blockSize);
+                skipHole(target, holeEnd - filePosition);
+                filePosition = holeEnd;
+                continue;
+            }
 
-                byte b = dataBlock.get();
-                arr[i] = b;
+            long runBytes = Math.min((long)run * blockSize - filePosition % blockSize, size - filePosition);
+            if(runBytes >= Constants.FILE_TRANSFER_MIN_RUN)
+            {
+                vol.transferTo(fileInfo.getBlockPointer(block) * blockSize + filePosition % blockSize, runBytes, target);
+                filePosition += runBytes;
+                continue;
+            }
 
+            if(buffer == null)
+                buffer = new byte[Constants.FILE_TRANSFER_BUFFER_SIZE];
+            long end = filePosition + runBytes;
+            while(end < size && end - filePosition < buffer.length)
+            {
+                int nextRun = fileInfo.getRunLength(end / blockSize);
+                long nextBytes = Math.min((long)nextRun * blockSize - end % blockSize, size - end);
+                if(nextRun == 0 || nextBytes >= Constants.FILE_TRANSFER_MIN_RUN)
+                    break;
+                end += nextBytes;
             }
-            System.out.print(new String(arr).trim());
-            System.out.println();
+
+            int amount = (int)Math.min(end - filePosition, buffer.length);
+            readInto(filePosition, buffer, 0, amount);
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, amount);
+            while(data.hasRemaining())
+                target.write(data);
+            filePosition += amount;
+        }
+
+        if(target instanceof FileChannel)
+        {
+            FileChannel file = (FileChannel)target;
+            if(size > 0 && file.size() < start + size)
+                file.write(ByteBuffer.wrap(new byte[1]), start + size - 1);
+            file.position(start + size);
+        }
+        return size;
+    }
+
+    /**
+     * Skips a hole in the destination of transferTo.
+     * A FileChannel is moved past the hole without writing, other channels are sent zeros.
+     * @param target Destination channel
+     * @param length Length of the hole in bytes
+     * @throws IOException If target could not be written
+     */
+    private void skipHole(WritableByteChannel target, long length) throws IOException
+    {
+        if(target instanceof FileChannel)
+        {
+            FileChannel file = (FileChannel)target;
+            file.position(file.position() + length);
+            return;
+        }
+
+        while(length > 0)
+        {
+            ByteBuffer zeros = vol.getZeroBlock();
+            zeros.limit((int)Math.min(zeros.capacity(), length));
+            length -= zeros.remaining();
+            while(zeros.hasRemaining())
+                target.write(zeros);
+        }
+    }
+
+    /**
+     * Writes the whole file to an OutputStream.
+     * The file is read in chunks of Constants.FILE_WRITE_BUFFER_SIZE bytes, one physical run per read,
+     * and each chunk is passed to out with a single write.
+     * @param out OutputStream to write the file to, it is not flushed or closed
+     * @return Number of bytes written
+     * @throws IOException If out could not be written
+     */
+    public long writeTo(OutputStream out) throws IOException
+    {
+        long size = size();
+        byte[] buffer = new byte[(int)Math.min(Constants.FILE_WRITE_BUFFER_SIZE, size)];
+        for(long written = 0;written<size;)
+        {
+            int amount = (int)Math.min(buffer.length, size - written);
+            readInto(written, buffer, 0, amount);
+            out.write(buffer, 0, amount);
+            written += amount;
         }
+        return size;
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Class provides a read-only SeekableByteChannel view of an Ext2File.
+ * Heap buffers are filled directly, other buffers through a bounded internal buffer.
+ */
+public class Ext2FileChannel implements SeekableByteChannel
+{
+    private final Ext2File file;
+    private byte[] buffer;
+    private long position;
+    private boolean open = true;
+
+    /**
+     * Create Ext2FileChannel
+     * @param file File to read
+     * @param position The position in file to start reading from
+     */
+    public Ext2FileChannel(Ext2File file, long position)
+    {
+        this.file = file;
+        this.position = position;
+    }
+
+    /**
+     * Reads bytes at the current position into dst and advances the position
+     * @param dst Destination buffer
+     * @return The amount of bytes read, -1 at the end of file
+     * @throws IOException If the channel is closed
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        ensureOpen();
+        if(!dst.hasRemaining())
+            return 0;
+
+        int amount;
+        if(dst.hasArray())
+        {
+            amount = file.read(position, dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if(amount > 0)
+                dst.position(dst.position() + amount);
+        }
+        else
+        {
+            if(buffer == null)
+                buffer = new byte[Constants.FILE_STREAM_BUFFER_SIZE];
+            amount = file.read(position, buffer, 0, Math.min(buffer.length, dst.remaining()));
+            if(amount > 0)
+                dst.put(buffer, 0, amount);
+        }
+
+        if(amount > 0)
+            position += amount;
+        return amount;
+    }
+
+    /**
+     * Not supported, the channel is read-only
+     * @param src Ignored
+     * @return Never returns
+     */
+    @Override
+    public int write(ByteBuffer src)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Gets current position in file
+     * @return Current position in file
+     * @throws IOException If the channel is closed
+     */
+    @Override
+    public long position() throws IOException
+    {
+        ensureOpen();
+        return position;
+    }
+
+    /**
+     * Set current position in file to a new position, positions past the end of file are allowed
+     * @param newPosition New position
+     * @return This channel
+     * @throws IOException If the channel is closed
+     */
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        ensureOpen();
+        if(newPosition < 0)
+            throw new IllegalArgumentException("Position out of bounds");
+
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Gets file size
+     * @return File size
+     * @throws IOException If the channel is closed
+     */
+    @Override
+    public long size() throws IOException
+    {
+        ensureOpen();
+        return file.size();
+    }
+
+    /**
+     * Not supported, the channel is read-only
+     * @param size Ignored
+     * @return Never returns
+     */
+    @Override
+    public SeekableByteChannel truncate(long size)
+    {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * @return True if the channel is open
+     */
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    /**
+     * Closes the channel
+     */
+    @Override
+    public void close()
+    {
+        open = false;
+        buffer = null;
+    }
+
+    /**
+     * Checks that the channel has not been closed
+     * @throws IOException If the channel is closed
+     */
+    private void ensureOpen() throws IOException
+    {
+        if(!open)
+            throw new ClosedChannelException();
+    }
+}
\ No newline at end of file
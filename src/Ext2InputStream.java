@@ -0,0 +1,178 @@
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Class provides an InputStream view of an Ext2File.
+ * Reads go through a bounded internal buffer, so files of any size can be streamed in constant memory.
+ */
+public class Ext2InputStream extends InputStream
+{
+    private final Ext2File file;
+    private final byte[] buffer = new byte[Constants.FILE_STREAM_BUFFER_SIZE];
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+    private long position;
+    private long mark;
+    private boolean closed = false;
+
+    /**
+     * Create Ext2InputStream
+     * @param file File to read
+     * @param position The position in file to start reading from
+     */
+    public Ext2InputStream(Ext2File file, long position)
+    {
+        this.file = file;
+        this.position = position;
+        this.mark = position;
+    }
+
+    /**
+     * Reads the next byte of the file
+     * @return Next byte, -1 at the end of file
+     * @throws IOException If the stream is closed
+     */
+    @Override
+    public int read() throws IOException
+    {
+        ensureOpen();
+        if(!fill())
+            return -1;
+
+        return buffer[(int)(position++ - bufferStart)] & 0xff;
+    }
+
+    /**
+     * Reads up to length bytes of the file into arr.
+     * Requests larger than the internal buffer are read straight into arr.
+     * @param arr Destination array
+     * @param offset The start offset in the destination array
+     * @param length The maximum amount of bytes to be read
+     * @return The amount of bytes read, -1 at the end of file
+     * @throws IOException If the stream is closed
+     */
+    @Override
+    public int read(byte[] arr, int offset, int length) throws IOException
+    {
+        ensureOpen();
+        if(offset<0 || length<0 || length>arr.length-offset)
+            throw new IndexOutOfBoundsException();
+        if(length == 0)
+            return 0;
+
+        if(position >= bufferStart && position < bufferStart + bufferLength)
+        {
+            int amount = (int)Math.min(length, bufferStart + bufferLength - position);
+            System.arraycopy(buffer, (int)(position - bufferStart), arr, offset, amount);
+            position += amount;
+            return amount;
+        }
+
+        if(length >= buffer.length)
+        {
+            int amount = file.read(position, arr, offset, length);
+            if(amount > 0)
+                position += amount;
+            return amount;
+        }
+
+        if(!fill())
+            return -1;
+        return read(arr, offset, length);
+    }
+
+    /**
+     * Skips n bytes of the file
+     * @param n The amount of bytes to skip
+     * @return The amount of bytes skipped
+     * @throws IOException If the stream is closed
+     */
+    @Override
+    public long skip(long n) throws IOException
+    {
+        ensureOpen();
+        if(n <= 0)
+            return 0;
+
+        long skipped = Math.min(n, Math.max(0, file.size() - position));
+        position += skipped;
+        return skipped;
+    }
+
+    /**
+     * Gets the amount of bytes that can be read without blocking
+     * @return Bytes remaining in the file, capped at maximum int size
+     * @throws IOException If the stream is closed
+     */
+    @Override
+    public int available() throws IOException
+    {
+        ensureOpen();
+        return (int)Math.min(Constants.INT_SIZE, Math.max(0, file.size() - position));
+    }
+
+    /**
+     * Marks the current position, the read limit is ignored since any position can be returned to
+     * @param readlimit Ignored
+     */
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+        mark = position;
+    }
+
+    /**
+     * Returns to the marked position
+     */
+    @Override
+    public synchronized void reset()
+    {
+        position = mark;
+    }
+
+    /**
+     * @return True, mark and reset are supported
+     */
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Closes the stream
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Refills the internal buffer at the current position if it does not hold it
+     * @return False at the end of file
+     */
+    private boolean fill()
+    {
+        if(position >= bufferStart && position < bufferStart + bufferLength)
+            return true;
+
+        int amount = file.read(position, buffer, 0, buffer.length);
+        if(amount <= 0)
+            return false;
+
+        bufferStart = position;
+        bufferLength = amount;
+        return true;
+    }
+
+    /**
+     * Checks that the stream has not been closed
+     * @throws IOException If the stream is closed
+     */
+    private void ensureOpen() throws IOException
+    {
+        if(closed)
+            throw new IOException("Stream closed");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for copying files and directory trees out of a Volume onto the host file system.
+ * Directories are walked on the calling thread, files are copied in parallel on virtual threads
+ * when the runtime has them, or on a fixed pool of platform threads otherwise.
+ * At most Constants.EXTRACT_MAX_IN_FLIGHT files are copied at the same time.
+ * File contents are sent from the image to the host file with FileChannel.transferTo, one physical run at a time,
+ * and holes of sparse files stay holes on the host.
+ * Symbolic links are recreated as links, other special files such as devices, FIFOs and sockets are skipped and counted.
+ * File mode and last modified time are copied from the inode.
+ * Names from the image are untrusted: names that could leave the host directory are rejected, existing host symbolic links
+ * are never followed or replaced by directories, and a directory reached twice through a corrupt tree is skipped.
+ */
+public class Extractor
+{
+    private final Volume vol;
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final ArrayList<Path> directories = new ArrayList<Path>();
+    private final ArrayList<Inode> directoryInodes = new ArrayList<Inode>();
+    private final HashSet<Integer> visited = new HashSet<Integer>();
+    private Path root;
+
+    /**
+     * Create Extractor
+     * @param vol Volume
+     */
+    public Extractor(Volume vol)
+    {
+        this.vol = vol;
+    }
+
+    /**
+     * Copies a file or a directory tree from the volume into a host directory and prints the throughput
+     * @param srcPath Path of the file or directory in the volume
+     * @param hostDir Host directory to copy into, created if it does not exist
+     */
+    public void extract(String srcPath, String hostDir)
+    {
+        files.set(0);
+        bytes.set(0);
+        failures.set(0);
+        skipped.set(0);
+        directories.clear();
+        directoryInodes.clear();
+        visited.clear();
+
+        int srcInode = Directory.resolve(vol, srcPath);
+        if(srcInode == 0)
+        {
+            System.out.println("Failed to find " + srcPath);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = newExecutor();
+        Semaphore inFlight = new Semaphore(Constants.EXTRACT_MAX_IN_FLIGHT);
+
+        try
+        {
+            // the host directory is trusted, it may be reached through a symbolic link
+            if(!Files.isDirectory(Paths.get(hostDir)))
+                Files.createDirectories(Paths.get(hostDir));
+            Path target = Paths.get(hostDir).toRealPath();
+            root = target;
+
+            // a source like /a/.. has no usable name of its own, its contents go straight into the host directory
+            String path = Helper.normalizePath(srcPath);
+            Path named = resolveTarget(target, Helper.getPathName(path));
+            if(vol.getInode(srcInode).isDir())
+                walk(srcInode, path.endsWith("/") ? path : path + "/", named == null ? target : named, executor, inFlight);
+            else if(named == null)
+                reject(path, "unsafe file name");
+            else
+                extractFile(srcInode, path, named, executor, inFlight);
+        }
+        catch(IOException e)
+        {
+            System.out.println(e);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdown();
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // set directory attributes last, copying files into them changes their modified time
+        for(int i = directories.size()-1;i>=0;i--)
+            setAttributes(directories.get(i), directoryInodes.get(i));
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Extracted " + files.get() + " files, " + bytes.get() + " bytes in "
+            + String.format("%.2f", seconds) + " s (" + String.format("%.1f", bytes.get() / 1048576.0 / Math.max(seconds, 1e-9)) + " MiB/s)"
+            + (failures.get() > 0 ? ", " + failures.get() + " failed" : "")
+            + (skipped.get() > 0 ? ", " + skipped.get() + " skipped" : ""));
+    }
+
+    /**
+     * Creates a host directory for a volume directory and submits copies of everything under it
+     * @param dirInode Inode number of the directory
+     * @param dirPath Path of the directory in the volume, ending with '/'
+     * @param target Host directory
+     * @param executor Executor copying the files
+     * @param inFlight Semaphore limiting files copied at the same time
+     * @throws InterruptedException If interrupted while waiting for a copy slot
+     */
+    private void walk(int dirInode, String dirPath, Path target, ExecutorService executor, Semaphore inFlight) throws InterruptedException
+    {
+        if(!visited.add(dirInode))
+        {
+            reject(dirPath, "directory loop");
+            return;
+        }
+
+        try
+        {
+            // an existing symbolic link is not a directory here, so createDirectory fails instead of following it
+            if(!Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS))
+                Files.createDirectory(target);
+        }
+        catch(IOException e)
+        {
+            failures.incrementAndGet();
+            System.out.println("Failed to extract " + dirPath + ": " + e);
+            return;
+        }
+        directories.add(target);
+        directoryInodes.add(vol.getInode(dirInode));
+
+        DirectoryCursor entry = new Directory(vol, dirInode, dirPath).getCursor();
+        while(entry.next())
+        {
+            if(entry.isDotEntry())
+                continue;
+
+            String name = entry.getName();
+            Path entryTarget = resolveTarget(target, name);
+            if(entryTarget == null)
+                reject(dirPath + name, "unsafe file name");
+            else if(vol.getInode(entry.getInode()).isDir())
+                walk(entry.getInode(), dirPath + name + "/", entryTarget, executor, inFlight);
+            else
+                extractFile(entry.getInode(), dirPath + name, entryTarget, executor, inFlight);
+        }
+    }
+
+    /**
+     * Resolves a file name from the image against a host directory.
+     * Names that are empty, . or .., that contain '/' or NUL, or that would end up outside the host directory are rejected.
+     * @param dir Host directory
+     * @param name File name from the image
+     * @return Host path, null if the name is rejected
+     */
+    private Path resolveTarget(Path dir, String name)
+    {
+        if(name.isEmpty() || name.equals(".") || name.equals("..") || name.indexOf('/') >= 0 || name.indexOf('\0') >= 0)
+            return null;
+
+        try
+        {
+            Path resolved = dir.resolve(name).normalize();
+            return resolved.startsWith(root) && !resolved.equals(root) ? resolved : null;
+        }
+        catch(InvalidPathException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Counts and reports an entry that is not extracted
+     * @param path Path of the entry in the volume
+     * @param reason Reason
+     */
+    private void reject(String path, String reason)
+    {
+        skipped.incrementAndGet();
+        System.out.println("Skipped " + path + ": " + reason);
+    }
+
+    /**
+     * Removes an earlier host file or symbolic link before it is replaced, without following links.
+     * Directories are never removed, so a directory already extracted cannot be swapped for a link.
+     * @param target Host path
+     * @throws IOException If a directory is in the way or the file could not be removed
+     */
+    private static void removeExisting(Path target) throws IOException
+    {
+        if(Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS))
+            throw new FileAlreadyExistsException(target.toString(), null, "directory in the way");
+        Files.deleteIfExists(target);
+    }
+
+    /**
+     * Extracts anything that is not a directory: regular files are submitted for copying,
+     * symbolic links are recreated and other file types are skipped
+     * @param fileInode Inode number of the file
+     * @param filePath Path of the file in the volume
+     * @param target Host file
+     * @param executor Executor copying the files
+     * @param inFlight Semaphore limiting files copied at the same time
+     * @throws InterruptedException If interrupted while waiting for a copy slot
+     */
+    private void extractFile(int fileInode, String filePath, Path target, ExecutorService executor, Semaphore inFlight) throws InterruptedException
+    {
+        Inode inode = vol.getInode(fileInode);
+        if(inode.isFile())
+            submit(fileInode, filePath, target, executor, inFlight);
+        else if(inode.isSymbolicLink())
+            link(fileInode, filePath, target);
+        else
+            reject(filePath, "not a regular file, directory or symbolic link");
+    }
+
+    /**
+     * Recreates a symbolic link on the host with the link's own last modified time
+     * @param linkInode Inode number of the link
+     * @param linkPath Path of the link in the volume
+     * @param target Host link
+     */
+    private void link(int linkInode, String linkPath, Path target)
+    {
+        try
+        {
+            String linkTarget = new Ext2File(vol, linkInode, linkPath).readLink();
+            removeExisting(target);
+            Files.createSymbolicLink(target, Paths.get(linkTarget));
+            Files.getFileAttributeView(target, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+                .setTimes(FileTime.fromMillis(vol.getInode(linkInode).getLastModifiedTime()), null, null);
+            files.incrementAndGet();
+        }
+        catch(IOException | UnsupportedOperationException | InvalidPathException e)
+        {
+            failures.incrementAndGet();
+            System.out.println("Failed to extract " + linkPath + ": " + e);
+        }
+    }
+
+    /**
+     * Submits a copy of one file, waiting while too many copies are in progress
+     * @param fileInode Inode number of the file
+     * @param filePath Path of the file in the volume
+     * @param target Host file
+     * @param executor Executor copying the files
+     * @param inFlight Semaphore limiting files copied at the same time
+     * @throws InterruptedException If interrupted while waiting for a copy slot
+     */
+    private void submit(int fileInode, String filePath, Path target, ExecutorService executor, Semaphore inFlight) throws InterruptedException
+    {
+        inFlight.acquire();
+        executor.execute(() ->
+        {
+            try
+            {
+                copy(fileInode, filePath, target);
+            }
+            catch(IOException e)
+            {
+                failures.incrementAndGet();
+                System.out.println("Failed to extract " + filePath + ": " + e);
+            }
+            finally
+            {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Copies one file onto the host and sets its attributes
+     * @param fileInode Inode number of the file
+     * @param filePath Path of the file in the volume
+     * @param target Host file
+     * @throws IOException If the host file could not be written
+     */
+    private void copy(int fileInode, String filePath, Path target) throws IOException
+    {
+        Ext2File file = new Ext2File(vol, fileInode, filePath);
+        removeExisting(target);
+        try(FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS))
+        {
+            bytes.addAndGet(file.transferTo(out));
+        }
+        setAttributes(target, vol.getInode(fileInode));
+        files.incrementAndGet();
+    }
+
+    /**
+     * Sets permissions and last modified time of a host file from an inode, without following symbolic links.
+     * Permissions are only set on file systems that support POSIX permissions.
+     * @param target Host file
+     * @param inode Inode to copy the attributes from
+     */
+    private void setAttributes(Path target, Inode inode)
+    {
+        try
+        {
+            PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+            if(view != null)
+                view.setPermissions(getPermissions(inode.getFileMode()));
+        }
+        catch(UnsupportedOperationException | IOException e)
+        {
+            // permissions are best effort, e.g. on non-POSIX host file systems
+        }
+
+        try
+        {
+            Files.getFileAttributeView(target, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+                .setTimes(FileTime.fromMillis(inode.getLastModifiedTime()), null, null);
+        }
+        catch(IOException e)
+        {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Converts inode permission bits to POSIX permissions
+     * @param mode File mode
+     * @return Set of POSIX permissions
+     */
+    private static Set<PosixFilePermission> getPermissions(int mode)
+    {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        if((mode & Constants.IRUSR) != 0)
+            permissions.add(PosixFilePermission.OWNER_READ);
+        if((mode & Constants.IWUSR) != 0)
+            permissions.add(PosixFilePermission.OWNER_WRITE);
+        if((mode & Constants.IXUSR) != 0)
+            permissions.add(PosixFilePermission.OWNER_EXECUTE);
+        if((mode & Constants.IRGRP) != 0)
+            permissions.add(PosixFilePermission.GROUP_READ);
+        if((mode & Constants.IWGRP) != 0)
+            permissions.add(PosixFilePermission.GROUP_WRITE);
+        if((mode & Constants.IXGRP) != 0)
+            permissions.add(PosixFilePermission.GROUP_EXECUTE);
+        if((mode & Constants.IROTH) != 0)
+            permissions.add(PosixFilePermission.OTHERS_READ);
+        if((mode & Constants.IWOTH) != 0)
+            permissions.add(PosixFilePermission.OTHERS_WRITE);
+        if((mode & Constants.IXOTH) != 0)
+            permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+        return permissions;
+    }
+
+    /**
+     * Creates a virtual thread per task executor when the runtime supports virtual threads,
+     * a fixed pool of platform threads otherwise
+     * @return ExecutorService copying the files
+     */
+    private static ExecutorService newExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e)
+        {
+            return Executors.newFixedThreadPool(Constants.EXTRACT_PLATFORM_THREADS);
+        }
+    }
+
+    /**
+     * Gets number of files copied by the last extraction, symbolic links included
+     * @return Number of files copied
+     */
+    public long getFiles()
+    {
+        return files.get();
+    }
+
+    /**
+     * Gets number of files skipped by the last extraction because they are neither regular files, directories nor symbolic links
+     * @return Number of files skipped
+     */
+    public long getSkipped()
+    {
+        return skipped.get();
+    }
+
+    /**
+     * Gets number of bytes copied by the last extraction
+     * @return Number of bytes copied
+     */
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+}
\ No newline at end of file
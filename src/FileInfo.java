@@ -1,21 +1,31 @@
-import java.util.ArrayList;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.HashMap;
 
 /**
  * Class for getting and storing file data blocks.
+ * Indirect blocks are resolved on demand, the first time a block under them is accessed.
  */
 public class FileInfo
 {
     private final Volume vol;
-    private final ArrayList<DataBlock> dataBlocks = new ArrayList<DataBlock>();
+    private final BlockMap dataBlocks = new BlockMap();
     private final Inode inode;
-    private int truesize = 0;
+    private final int blockSize;
+    private final int pointersPerBlock;
+    private final BitSet resolvedLeaves = new BitSet();
+    private final HashMap<Long, int[]> indirectNodes = new HashMap<Long, int[]>();
+    private boolean resolvedAll = false;
     private int currentBlock = -1;
+    private ByteBuffer run;
+    private long runFirstPointer = 0;
+    private int runBlocks = 0;
+    private ReadAhead readAhead;
     private int numBlocks = 0;
-    private int numUsefulBlocks = 0;
 
     /**
-     * Gets and saves file data blocks
+     * Saves direct file data blocks, indirect blocks are resolved when first needed
      * @param inode File inode
      * @param vol Volume
      */
@@ -23,96 +33,118 @@ public class FileInfo
     {
         this.inode = inode;
         this.vol = vol;
+        this.blockSize = vol.getBlockSize();
+        this.pointersPerBlock = vol.getSuperBlock().getPointersPerBlock();
 
-        for(long pointer :inode.getBlockpointer())
-        {
-            if(numBlocks * Constants.BLOCK_SIZE>=inode.getSize())
-                break;
-
-            if(pointer !=0)
-                dataBlocks.add(new DataBlock(numBlocks,pointer));
+        numBlocks = (int)((inode.getSize() + blockSize - 1) / blockSize);
 
-            numBlocks++;
+        long[] blockPointer = inode.getBlockpointer();
+        for(int i = 0;i<Constants.INODE_DIRECT_POINTERS && i<numBlocks;i++)
+        {
+            if(blockPointer[i] !=0)
+                dataBlocks.add(i, blockPointer[i]);
         }
+    }
 
-        indirectTraverse(inode.getIndirectPointer());
+    /**
+     * Gets index of the leaf indirect block holding the pointer to a logical block.
+     * Leaf 0 is the indirect block, leaves 1 to pointersPerBlock are under the double indirect block,
+     * the remaining leaves are under the triple indirect block.
+     * @param block Logical block number, at least INODE_DIRECT_POINTERS
+     * @return Leaf index
+     */
+    private int getLeaf(long block)
+    {
+        long index = block - Constants.INODE_DIRECT_POINTERS;
+        if(index < pointersPerBlock)
+            return 0;
 
-        doubleIndirectTraverse(inode.getDoubleIndirectPointer());
+        return (int)(1 + (index - pointersPerBlock) / pointersPerBlock);
+    }
 
-        tripleIndirectTraverse(inode.getTripleIndirectPointer());
+    /**
+     * Makes sure the pointer to a logical block has been read into the block map
+     * @param block Logical block number
+     */
+    private void resolve(long block)
+    {
+        if(block < Constants.INODE_DIRECT_POINTERS || block >= numBlocks || resolvedAll)
+            return;
 
-        truesize = dataBlocks.size() * Constants.BLOCK_SIZE;
-        numUsefulBlocks = dataBlocks.size();
+        int leaf = getLeaf(block);
+        if(!resolvedLeaves.get(leaf))
+            resolveLeaf(leaf);
     }
 
     /**
-     * Gets indirect pointer data blocks
-     * @param Indirectpointer Indirect pointer
+     * Reads all indirect blocks of the file into the block map
      */
-    private void indirectTraverse(long Indirectpointer)
+    private void resolveAll()
     {
-        if(Indirectpointer!=0)
-        {
-            ByteBuffer bf = vol.getByteBuffer(Indirectpointer*Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
-            int pointer;
-            
-            while(bf.hasRemaining() && (numBlocks * Constants.BLOCK_SIZE)<inode.getSize())
-            {
-                pointer = bf.getInt();
-                if(pointer !=0)
-                    dataBlocks.add(new DataBlock(numBlocks,pointer));
+        if(resolvedAll)
+            return;
 
-                numBlocks++;
-            }
+        if(numBlocks > Constants.INODE_DIRECT_POINTERS)
+        {
+            int lastLeaf = getLeaf(numBlocks - 1);
+            for(int leaf = resolvedLeaves.nextClearBit(0);leaf<=lastLeaf;leaf = resolvedLeaves.nextClearBit(leaf + 1))
+                resolveLeaf(leaf);
         }
-        else if(numBlocks * Constants.BLOCK_SIZE>=inode.getSize());
-        else
-            numBlocks += Constants.INODES_PER_BLOCK;
+        resolvedAll = true;
     }
 
     /**
-     * Gets double indirect pointer data blocks
-     * @param Indirectpointer Double indirect pointer
+     * Finds a leaf indirect block through the indirect tree and adds its pointers to the block map
+     * @param leaf Leaf index
      */
-    private void doubleIndirectTraverse(long Indirectpointer)
+    private void resolveLeaf(int leaf)
     {
-        
-        if(Indirectpointer!=0)
+        long first = Constants.INODE_DIRECT_POINTERS + (long)leaf * pointersPerBlock;
+        long pointer;
+
+        if(leaf == 0)
+            pointer = inode.getIndirectPointer();
+        else if(leaf <= pointersPerBlock)
+            pointer = getIndirectEntry(inode.getDoubleIndirectPointer(), leaf - 1);
+        else
         {
-            ByteBuffer bf = vol.getByteBuffer(Indirectpointer*Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
-            int pointer;
+            int index = leaf - 1 - pointersPerBlock;
+            long doubleIndirect = getIndirectEntry(inode.getTripleIndirectPointer(), index / pointersPerBlock);
+            pointer = getIndirectEntry(doubleIndirect, index % pointersPerBlock);
+        }
 
-            while(bf.hasRemaining())
+        if(pointer != 0)
+        {
+            ByteBuffer bf = vol.getBlock(pointer);
+            for(int i = 0;i<pointersPerBlock && first + i < numBlocks;i++)
             {
-                pointer = bf.getInt();
-                indirectTraverse(pointer);
+                long blockPointer = Helper.getUInt(bf.getInt());
+                if(blockPointer != 0)
+                    dataBlocks.add(first + i, blockPointer);
             }
         }
-        else if(numBlocks * Constants.BLOCK_SIZE>=inode.getSize());
-        else
-            numBlocks += Constants.INODES_PER_BLOCK * Constants.INODES_PER_BLOCK;
+        resolvedLeaves.set(leaf);
     }
 
     /**
-     * Gets triple indirect pointer data blocks
-     * @param Indirectpointer Triple indirect pointer
+     * Gets an entry of a double or triple indirect block, remembering the block for later lookups
+     * @param pointer Indirect block pointer
+     * @param index Entry index
+     * @return Block pointer at index, 0 if pointer is 0
      */
-    private void tripleIndirectTraverse(long Indirectpointer)
+    private long getIndirectEntry(long pointer, int index)
     {
-        if(Indirectpointer!=0)
-        {
-            ByteBuffer bf = vol.getByteBuffer(Indirectpointer*Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
-            int pointer;
+        if(pointer == 0)
+            return 0;
 
-            while(bf.hasRemaining())
-            {
-                pointer = bf.getInt();
-                doubleIndirectTraverse(pointer);
-            }
+        int[] entries = indirectNodes.get(pointer);
+        if(entries == null)
+        {
+            entries = new int[pointersPerBlock];
+            vol.getBlock(pointer).asIntBuffer().get(entries);
+            indirectNodes.put(pointer, entries);
         }
-        else if(numBlocks * Constants.BLOCK_SIZE>=inode.getSize());
-        else
-            numBlocks += Constants.INODES_PER_BLOCK * Constants.INODES_PER_BLOCK * Constants.INODES_PER_BLOCK;
+        return Helper.getUInt(entries[index]);
     }
     
     /**
@@ -125,10 +157,12 @@ public class FileInfo
         currentBlock = no;
         long pointer = returnBlockPointer(no);
 
+        if(readAhead != null)
+            return readAhead.getBlock(no);
         if(pointer == 0)
-            return vol.wrapBuffer(new byte[Constants.BLOCK_SIZE]);
+            return vol.getZeroBlock();
         else
-            return vol.getByteBuffer(pointer * Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
+            return readDataBlock(pointer, getRunLength(no));
     }
 
     /**
@@ -140,10 +174,12 @@ public class FileInfo
         currentBlock++;
         long pointer = returnBlockPointer(currentBlock);
 
+        if(readAhead != null)
+            return readAhead.getBlock(currentBlock);
         if(pointer == 0)
-            return vol.wrapBuffer(new byte[Constants.BLOCK_SIZE]);
+            return vol.getZeroBlock();
         else
-            return vol.getByteBuffer(pointer * Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
+            return readDataBlock(pointer, getRunLength(currentBlock));
     }
 
     /**
@@ -152,21 +188,54 @@ public class FileInfo
      */
     public ByteBuffer getNextUsefulBlock()
     {
+        resolveAll();
         currentBlock++;
 
-        if(dataBlocks.size()>currentBlock)
-            return vol.getByteBuffer(dataBlocks.get(currentBlock).block_pointer * Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
+        if(dataBlocks.getBlocks()>currentBlock)
+            return readDataBlock(dataBlocks.getUsefulPhysical(currentBlock), dataBlocks.getUsefulRunLength(currentBlock));
         else
-            return vol.wrapBuffer(new byte[Constants.BLOCK_SIZE]);
+            return vol.getZeroBlock();
     }
-    
+
     /**
-     * Gets the true size of the file (non-empty blocks)
+     * Reads data block with specified block pointer.
+     * Directory blocks go through the Volume block cache, file contents are read directly
+     * so that streaming a large file does not evict hot metadata blocks.
+     * File blocks that start a physically contiguous run are read together with the rest of the run,
+     * up to Constants.FILE_INFO_MAX_RUN_READ bytes, and the following blocks are served from that read.
+     * @param pointer Block pointer
+     * @param runLength Number of consecutive physical blocks starting at pointer that belong to the file
+     * @return Data block
+     */
+    private ByteBuffer readDataBlock(long pointer, int runLength)
+    {
+        if(inode.isDir())
+            return vol.getBlock(pointer);
+        if(vol.isMapped() || runLength <= 1)
+            return vol.getByteBuffer(pointer * blockSize, blockSize);
+
+        if(run == null || pointer < runFirstPointer || pointer >= runFirstPointer + runBlocks)
+        {
+            runBlocks = Math.min(runLength, Constants.FILE_INFO_MAX_RUN_READ / blockSize);
+            runFirstPointer = pointer;
+            run = vol.getByteBuffer(pointer * blockSize, runBlocks * blockSize);
+        }
+
+        run.limit(run.capacity());
+        run.position((int)(pointer - runFirstPointer) * blockSize);
+        run.limit(run.position() + blockSize);
+        return run.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gets the true size of the file (non-empty blocks).
+     * Resolves the whole indirect tree.
      * @return True size of the file
      */
     public int getTrueSize()
     {
-        return truesize;
+        resolveAll();
+        return dataBlocks.getBlocks() * blockSize;
     }
 
     /**
@@ -196,47 +265,147 @@ public class FileInfo
     }
 
     /**
-     * Gets number of non-empty data blocks
+     * Gets number of non-empty data blocks.
+     * Resolves the whole indirect tree.
      * @return Number of non-empty data blocks
      */
     public int getNumUsefulBlocks()
     {
-        return numUsefulBlocks;
+        resolveAll();
+        return dataBlocks.getBlocks();
     }
 
     /**
-     * Gets block pointer from dataBlock wtih specified block number
+     * Gets block pointer from the block map for specified block number,
+     * resolving the indirect block holding it if needed
      * @param block_number Block number
-     * @return Block pointer from dataBlock
+     * @return Block pointer, 0 if the block is empty
      */
     private long returnBlockPointer(long block_number)
     {
-        for(DataBlock dataBlock : dataBlocks)
-        {
-            if(dataBlock.block_number == block_number)
-                return dataBlock.block_pointer;
-        }
-        return 0;
+        resolve(block_number);
+        return dataBlocks.getPhysical(block_number);
+    }
+
+    /**
+     * Gets physical block pointer of a logical block
+     * @param block Logical block number
+     * @return Physical block pointer, 0 if the block is empty
+     */
+    public long getBlockPointer(long block)
+    {
+        return returnBlockPointer(block);
+    }
+
+    /**
+     * Gets number of blocks starting at a logical block that are stored in consecutive physical blocks.
+     * Only blocks whose pointers have already been resolved are counted.
+     * @param block Logical block number
+     * @return Number of consecutive blocks, 0 if the block is empty
+     */
+    public int getRunLength(long block)
+    {
+        resolve(block);
+        int extent = dataBlocks.findExtent(block);
+        if(extent < 0 || block >= dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent))
+            return 0;
+
+        return (int)(dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent) - block);
     }
 
     /**
-     * Inner class to save non-empty data blocks
-     * No getters/setters needed, since this is a private Inner class 
+     * Finds the first non-empty block in a range of logical blocks for reading past a hole.
+     * Unlike seekData only the leaf indirect block covering the current block is resolved,
+     * moving forward one leaf at a time until data or the end of the range is found.
+     * @param block First logical block of the range
+     * @param limit Logical block after the range
+     * @return Logical block number of the first non-empty block, limit if the range is empty
      */
-    private class DataBlock
+    public long nextData(long block, long limit)
     {
-        private long block_number;
-        private long block_pointer;
-        
-        /**
-         * Create DataBlock
-         * @param block_number Block number
-         * @param block_pointer Block pointer
-         */
-        private DataBlock(long block_number, long block_pointer)
+        limit = Math.min(limit, numBlocks);
+        while(block < limit)
         {
-            this.block_number = block_number;
-            this.block_pointer = block_pointer;
+            resolve(block);
+            long leafEnd = Constants.INODE_DIRECT_POINTERS;
+            if(block >= Constants.INODE_DIRECT_POINTERS)
+                leafEnd += ((long)getLeaf(block) + 1) * pointersPerBlock;
+            leafEnd = Math.min(leafEnd, limit);
+
+            int extent = dataBlocks.findExtent(block);
+            if(extent >= 0 && block < dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent))
+                return block;
+            if(extent + 1 < dataBlocks.getExtents() && dataBlocks.getLogicalStart(extent + 1) < leafEnd)
+                return dataBlocks.getLogicalStart(extent + 1);
+            block = leafEnd;
         }
+        return limit;
+    }
+
+    /**
+     * Finds the first non-empty block at or after a logical block, like SEEK_DATA.
+     * Resolves the whole indirect tree.
+     * @param block Logical block number
+     * @return Logical block number of the first non-empty block, -1 if there is none
+     */
+    public long seekData(long block)
+    {
+        resolveAll();
+        int extent = dataBlocks.findExtent(block);
+        if(extent >= 0 && block < dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent))
+            return block;
+        if(extent + 1 < dataBlocks.getExtents())
+            return dataBlocks.getLogicalStart(extent + 1);
+        return -1;
+    }
+
+    /**
+     * Finds the first empty block at or after a logical block, like SEEK_HOLE.
+     * The end of the file counts as a hole. Resolves the whole indirect tree.
+     * @param block Logical block number
+     * @return Logical block number of the first empty block, at most the number of blocks in the file
+     */
+    public long seekHole(long block)
+    {
+        resolveAll();
+        int extent = dataBlocks.findExtent(block);
+        if(extent < 0 || block >= dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent))
+            return Math.min(block, numBlocks);
+
+        long end = dataBlocks.getLogicalStart(extent) + dataBlocks.getLength(extent);
+        while(++extent < dataBlocks.getExtents() && dataBlocks.getLogicalStart(extent) == end)
+            end += dataBlocks.getLength(extent);
+        return Math.min(end, numBlocks);
+    }
+
+    /**
+     * Sets read-ahead used by getBlock and getNextBlock for file contents
+     * @param readAhead ReadAhead of this file, null to read blocks synchronously
+     */
+    public void setReadAhead(ReadAhead readAhead)
+    {
+        if(this.readAhead != null)
+            this.readAhead.cancel();
+        this.readAhead = inode.isDir() ? null : readAhead;
+    }
+
+    /**
+     * Gets read-ahead used for file contents
+     * @return ReadAhead of this file, null if blocks are read synchronously
+     */
+    public ReadAhead getReadAhead()
+    {
+        return readAhead;
+    }
+
+    /**
+     * Gets the map of logical to physical blocks of the file.
+     * Resolves the whole indirect tree.
+     * @return BlockMap of the file
+     */
+    public BlockMap getBlockMap()
+    {
+        resolveAll();
+        return dataBlocks;
     }
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+import java.util.regex.Pattern;
+
+/**
+ * Class for the conditions a file has to meet to be reported by Finder.
+ * Every condition is optional and a file matches when it meets all conditions that are set.
+ * Conditions are split by what they need: the file type, the inode and the name,
+ * so Finder only reads inodes and decodes names for files that can still match.
+ */
+public class FindQuery
+{
+    private Pattern name;
+    private int fileType = -1;
+    private long minSize = 0;
+    private long maxSize = Long.MAX_VALUE;
+    private long modifiedFrom = Long.MIN_VALUE;
+    private long modifiedTo = Long.MAX_VALUE;
+    private int ownerId = -1;
+    private int groupId = -1;
+
+    /**
+     * Parses find style arguments:
+     * -name glob, -regex regex, -type f|d|l|c|b|p|s, -size [+|-]n[c|k|M|G], -mtime [+|-]days, -uid id and -gid id.
+     * -name and -regex match the file name only. Sizes are in bytes unless suffixed,
+     * -size +n means more than n, -n less than n.
+     * -mtime -n means modified less than n days ago, +n more than n+1 days ago and n between n and n+1 days ago.
+     * @param arguments Arguments
+     * @param first Index of the first argument to parse
+     * @param now Current time in milliseconds since the epoch, -mtime counts back from it
+     * @return FindQuery with the conditions of the arguments
+     * @throws IllegalArgumentException If an argument is unknown, misses its value or has a malformed value
+     */
+    public static FindQuery parse(String[] arguments, int first, long now)
+    {
+        FindQuery query = new FindQuery();
+        for(int i = first;i<arguments.length;i += 2)
+        {
+            if(i + 1 == arguments.length)
+                throw new IllegalArgumentException("Missing value for " + arguments[i]);
+            String value = arguments[i + 1];
+
+            switch(arguments[i])
+            {
+                case "-name":
+                    query.setName(value);
+                    break;
+                case "-regex":
+                    query.setNameRegex(value);
+                    break;
+                case "-type":
+                    query.setFileType(parseFileType(value));
+                    break;
+                case "-size":
+                    long size = parseSize(stripSign(value));
+                    if(value.charAt(0) == '+')
+                        query.setSize(Math.max(query.minSize, size + 1), query.maxSize);
+                    else if(value.charAt(0) == '-')
+                        query.setSize(query.minSize, Math.min(query.maxSize, size - 1));
+                    else
+                        query.setSize(Math.max(query.minSize, size), Math.min(query.maxSize, size));
+                    break;
+                case "-mtime":
+                    long days = parseNumber(stripSign(value));
+                    if(value.charAt(0) == '+')
+                        query.setModified(query.modifiedFrom, Math.min(query.modifiedTo, now - (days + 1) * Constants.FIND_DAY));
+                    else if(value.charAt(0) == '-')
+                        query.setModified(Math.max(query.modifiedFrom, now - days * Constants.FIND_DAY), query.modifiedTo);
+                    else
+                        query.setModified(Math.max(query.modifiedFrom, now - (days + 1) * Constants.FIND_DAY),
+                            Math.min(query.modifiedTo, now - days * Constants.FIND_DAY));
+                    break;
+                case "-uid":
+                    query.setOwnerId((int)parseNumber(value));
+                    break;
+                case "-gid":
+                    query.setGroupId((int)parseNumber(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown condition " + arguments[i]);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Sets a shell glob the file name has to match, with *, ? and [...] classes, [!...] negated
+     * @param glob Glob
+     */
+    public void setName(String glob)
+    {
+        StringBuilder regex = new StringBuilder();
+        boolean inClass = false;
+        for(int i = 0;i<glob.length();i++)
+        {
+            char c = glob.charAt(i);
+            if(inClass)
+            {
+                if(c == ']')
+                    inClass = false;
+                if(c == '\\')
+                    regex.append('\\');
+                regex.append(c);
+            }
+            else if(c == '*')
+                regex.append(".*");
+            else if(c == '?')
+                regex.append('.');
+            else if(c == '[' && glob.indexOf(']', i + 2) > 0)
+            {
+                inClass = true;
+                regex.append('[');
+                if(glob.charAt(i + 1) == '!')
+                {
+                    regex.append('^');
+                    i++;
+                }
+            }
+            else if(Character.isLetterOrDigit(c))
+                regex.append(c);
+            else
+                regex.append('\\').append(c);
+        }
+        name = Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * Sets a regular expression the whole file name has to match
+     * @param regex Regular expression
+     */
+    public void setNameRegex(String regex)
+    {
+        name = Pattern.compile(regex);
+    }
+
+    /**
+     * Sets the file type
+     * @param fileType File type bits of the file mode, e.g. Constants.IFREG, -1 for any type
+     */
+    public void setFileType(int fileType)
+    {
+        this.fileType = fileType;
+    }
+
+    /**
+     * Sets the range the file size has to be in
+     * @param minSize Smallest size in bytes
+     * @param maxSize Largest size in bytes
+     */
+    public void setSize(long minSize, long maxSize)
+    {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets the range the last modified time has to be in
+     * @param modifiedFrom Earliest time in milliseconds since the epoch
+     * @param modifiedTo Latest time in milliseconds since the epoch
+     */
+    public void setModified(long modifiedFrom, long modifiedTo)
+    {
+        this.modifiedFrom = modifiedFrom;
+        this.modifiedTo = modifiedTo;
+    }
+
+    /**
+     * Sets the owner id
+     * @param ownerId Owner id, -1 for any owner
+     */
+    public void setOwnerId(int ownerId)
+    {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Sets the group id
+     * @param groupId Group id, -1 for any group
+     */
+    public void setGroupId(int groupId)
+    {
+        this.groupId = groupId;
+    }
+
+    /**
+     * Checks if any condition needs the inode beyond the file type
+     * @return True if size, modified time, owner or group is restricted
+     */
+    public boolean needsInode()
+    {
+        return minSize > 0 || maxSize != Long.MAX_VALUE || modifiedFrom != Long.MIN_VALUE || modifiedTo != Long.MAX_VALUE
+            || ownerId != -1 || groupId != -1;
+    }
+
+    /**
+     * Checks the file type condition
+     * @param type File type bits of the file mode
+     * @return True if the type matches
+     */
+    public boolean matchesFileType(int type)
+    {
+        return fileType == -1 || fileType == type;
+    }
+
+    /**
+     * Checks the size, modified time, owner and group conditions
+     * @param inode Inode of the file
+     * @return True if the inode matches
+     */
+    public boolean matchesInode(Inode inode)
+    {
+        if(!needsInode())
+            return true;
+
+        long size = inode.getSize();
+        long modified = inode.getLastModifiedTime();
+        return size >= minSize && size <= maxSize
+            && modified >= modifiedFrom && modified <= modifiedTo
+            && (ownerId == -1 || inode.getOwnerId() == ownerId)
+            && (groupId == -1 || inode.getGroupId() == groupId);
+    }
+
+    /**
+     * Checks the name condition
+     * @param fileName File name
+     * @return True if the name matches
+     */
+    public boolean matchesName(String fileName)
+    {
+        return name == null || name.matcher(fileName).matches();
+    }
+
+    /**
+     * Converts a find -type letter to file type bits
+     * @param type Type letter
+     * @return File type bits of the file mode
+     */
+    private static int parseFileType(String type)
+    {
+        switch(type)
+        {
+            case "f":
+                return Constants.IFREG;
+            case "d":
+                return Constants.IFDIR;
+            case "l":
+                return Constants.IFLNK;
+            case "c":
+                return Constants.IFCHR;
+            case "b":
+                return Constants.IFBLK;
+            case "p":
+                return Constants.IFIFO;
+            case "s":
+                return Constants.IFSOCK;
+            default:
+                throw new IllegalArgumentException("Unknown file type " + type);
+        }
+    }
+
+    /**
+     * Parses a size in bytes with an optional c, k, M or G suffix
+     * @param size Size without sign
+     * @return Size in bytes
+     */
+    private static long parseSize(String size)
+    {
+        long unit = 1;
+        boolean suffix = true;
+        switch(size.isEmpty() ? ' ' : size.charAt(size.length()-1))
+        {
+            case 'c':
+                break;
+            case 'k':
+                unit = Constants.FIND_KIB;
+                break;
+            case 'M':
+                unit = Constants.FIND_KIB * Constants.FIND_KIB;
+                break;
+            case 'G':
+                unit = Constants.FIND_KIB * Constants.FIND_KIB * Constants.FIND_KIB;
+                break;
+            default:
+                suffix = false;
+        }
+        if(suffix)
+            size = size.substring(0, size.length()-1);
+        long number = parseNumber(size);
+        if(number > Long.MAX_VALUE / unit)
+            throw new IllegalArgumentException("Size too large " + size);
+        return number * unit;
+    }
+
+    /**
+     * Parses a non-negative number
+     * @param number Number
+     * @return Number
+     */
+    private static long parseNumber(String number)
+    {
+        try
+        {
+            long value = Long.parseLong(number);
+            if(value < 0)
+                throw new IllegalArgumentException("Negative number " + number);
+            return value;
+        }
+        catch(NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Malformed number " + number);
+        }
+    }
+
+    /**
+     * Removes a leading + or -
+     * @param value Value
+     * @return Value without sign
+     */
+    private static String stripSign(String value)
+    {
+        return value.startsWith("+") || value.startsWith("-") ? value.substring(1) : value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Class for searching a directory tree of a Volume for files meeting a FindQuery, like UNIX find.
+ * The tree is walked on a fork/join pool with one task per directory, so idle threads steal whole subtrees from busy ones.
+ * Every directory is read exactly once with a DirectoryCursor and matches are reported while the walk goes on.
+ * The file type is taken from the directory entry when the volume stores it there,
+ * so inodes are only read for directories without types and for queries on size, time, owner or group.
+ */
+public class Finder
+{
+    private static final int[] FILE_TYPES = {0, Constants.IFREG, Constants.IFDIR, Constants.IFCHR,
+        Constants.IFBLK, Constants.IFIFO, Constants.IFSOCK, Constants.IFLNK};
+
+    private final Volume vol;
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+
+    /**
+     * Create Finder
+     * @param vol Volume
+     */
+    public Finder(Volume vol)
+    {
+        this.vol = vol;
+    }
+
+    /**
+     * Searches a file or directory tree on the common fork/join pool
+     * @param path Absolute path of the file or directory to search
+     * @param query Conditions the reported files meet
+     * @param action Called with the path and inode of every match, one call at a time
+     * @return Number of matches
+     */
+    public long find(String path, FindQuery query, BiConsumer<String, Inode> action)
+    {
+        return find(path, query, action, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches a file or directory tree.
+     * The starting point is checked against the query as well, matched by its own name.
+     * Calls to action are serialized, so it does not have to be thread-safe, but they come from the pool's threads.
+     * @param path Absolute path of the file or directory to search
+     * @param query Conditions the reported files meet
+     * @param action Called with the path and inode of every match, one call at a time
+     * @param pool Fork/join pool to walk the tree in
+     * @return Number of matches
+     */
+    public long find(String path, FindQuery query, BiConsumer<String, Inode> action, ForkJoinPool pool)
+    {
+        matches.set(0);
+        directories.set(0);
+
+        path = Helper.normalizePath(path);
+        int inodeNumber = Directory.resolve(vol, path);
+        if(inodeNumber == 0)
+        {
+            System.out.println("Failed to find " + path);
+            return 0;
+        }
+
+        Inode inode = vol.getInode(inodeNumber);
+        String name = Helper.getPathName(path);
+        int type = inode.getFileMode() & Constants.IFMT;
+        if(query.matchesFileType(type) && query.matchesInode(inode) && query.matchesName(name.isEmpty() ? "/" : name))
+            report(path, inode, action);
+
+        if(inode.isDir())
+            pool.invoke(new DirectoryScan(inodeNumber, name.isEmpty() ? path : path + "/", query, action));
+        return matches.get();
+    }
+
+    /**
+     * Passes a match to the action, one match at a time
+     * @param path Path of the match
+     * @param inode Inode of the match
+     * @param action Action
+     */
+    private void report(String path, Inode inode, BiConsumer<String, Inode> action)
+    {
+        synchronized(action)
+        {
+            action.accept(path, inode);
+        }
+        matches.incrementAndGet();
+    }
+
+    /**
+     * Gets number of matches of the last search
+     * @return Number of matches
+     */
+    public long getMatches()
+    {
+        return matches.get();
+    }
+
+    /**
+     * Gets number of directories read by the last search
+     * @return Number of directories
+     */
+    public long getDirectories()
+    {
+        return directories.get();
+    }
+
+    /**
+     * Inner class for reading one directory, checking its entries and searching its subdirectories
+     */
+    private class DirectoryScan extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int dirInode;
+        private final String dirPath;
+        private final FindQuery query;
+        private final BiConsumer<String, Inode> action;
+
+        /**
+         * Create DirectoryScan
+         * @param dirInode Inode number of the directory
+         * @param dirPath Path of the directory, ending with '/'
+         * @param query Conditions the reported files meet
+         * @param action Called with the path and inode of every match
+         */
+        private DirectoryScan(int dirInode, String dirPath, FindQuery query, BiConsumer<String, Inode> action)
+        {
+            this.dirInode = dirInode;
+            this.dirPath = dirPath;
+            this.query = query;
+            this.action = action;
+        }
+
+        /**
+         * Checks every entry of the directory, then searches the subdirectories in parallel
+         */
+        @Override
+        protected void compute()
+        {
+            directories.incrementAndGet();
+            ArrayList<DirectoryScan> subdirectories = new ArrayList<DirectoryScan>();
+
+            DirectoryCursor entry = new Directory(vol, dirInode, dirPath).getCursor();
+            while(entry.next())
+            {
+                if(entry.isDotEntry())
+                    continue;
+
+                int entryType = entry.getFileType();
+                int type = entryType < FILE_TYPES.length ? FILE_TYPES[entryType] : 0;
+                Inode inode = null;
+                if(type == 0 || query.needsInode())
+                {
+                    inode = vol.getInode(entry.getInode());
+                    type = inode.getFileMode() & Constants.IFMT;
+                }
+
+                String name = null;
+                if(query.matchesFileType(type) && (inode == null || query.matchesInode(inode)))
+                {
+                    name = entry.getName();
+                    if(query.matchesName(name))
+                        report(dirPath + name, inode == null ? vol.getInode(entry.getInode()) : inode, action);
+                }
+
+                if(type == Constants.IFDIR)
+                {
+                    if(name == null)
+                        name = entry.getName();
+                    subdirectories.add(new DirectoryScan(entry.getInode(), dirPath + name + "/", query, action));
+                }
+            }
+
+            invokeAll(subdirectories);
+        }
+    }
+}
\ No newline at end of file
@@ -7,25 +7,64 @@ import java.nio.ByteBuffer;
 public class GroupDescriptor
 {
     private final ByteBuffer groupDescriptor;
+    private final int[] blockBitmapPointer;
+    private final int[] inodeBitmapPointer;
     private final int[] iTablePointer;
+    private final int[] freeBlocks;
+    private final int[] freeInodes;
+    private final int[] usedDirectories;
     private final int groups;
 
     /**
-     * Find GroupDescriptors in file and save their data
+     * Find GroupDescriptors in file and save their data.
+     * The descriptor table starts in the block following the superblock.
      * @param vol Volumes
      */
     public GroupDescriptor(Volume vol)
     {
         groups = vol.getSuperBlock().getGroups();
+        blockBitmapPointer = new int[groups];
+        inodeBitmapPointer = new int[groups];
         iTablePointer = new int[groups];
-        groupDescriptor = vol.getByteBuffer(Constants.GROUP_DESCRIPTOR_OFFSET, groups*Constants.GROUP_DESCRIPTOR_SIZE);
+        freeBlocks = new int[groups];
+        freeInodes = new int[groups];
+        usedDirectories = new int[groups];
+        SuperBlock superBlock = vol.getSuperBlock();
+        long offset = (superBlock.getFirstDataBlock() + 1) * superBlock.getBlockSize();
+        groupDescriptor = vol.getByteBuffer(offset, groups*Constants.GROUP_DESCRIPTOR_SIZE);
 
         for(int i = 0;i<groups;i++)
         {
-            iTablePointer[i] = groupDescriptor.getInt((i*32)+8);
+            int descriptor = i*Constants.GROUP_DESCRIPTOR_SIZE;
+            blockBitmapPointer[i] = groupDescriptor.getInt(descriptor+Constants.GROUP_DESCRIPTOR_BLOCK_BITMAP_OFFSET);
+            inodeBitmapPointer[i] = groupDescriptor.getInt(descriptor+Constants.GROUP_DESCRIPTOR_INODE_BITMAP_OFFSET);
+            iTablePointer[i] = groupDescriptor.getInt(descriptor+Constants.GROUP_DESCRIPTOR_INODE_TABLE_OFFSET);
+            freeBlocks[i] = Helper.getUShort(groupDescriptor.getShort(descriptor+Constants.GROUP_DESCRIPTOR_FREE_BLOCKS_OFFSET));
+            freeInodes[i] = Helper.getUShort(groupDescriptor.getShort(descriptor+Constants.GROUP_DESCRIPTOR_FREE_INODES_OFFSET));
+            usedDirectories[i] = Helper.getUShort(groupDescriptor.getShort(descriptor+Constants.GROUP_DESCRIPTOR_USED_DIRECTORIES_OFFSET));
         }
     }
 
+    /**
+     * Get Block Bitmap pointer in group
+     * @param group Group number
+     * @return Block Bitmap pointer
+     */
+    public int getBlockBitmapPointer(int group)
+    {
+        return blockBitmapPointer[group];
+    }
+
+    /**
+     * Get Inode Bitmap pointer in group
+     * @param group Group number
+     * @return Inode Bitmap pointer
+     */
+    public int getInodeBitmapPointer(int group)
+    {
+        return inodeBitmapPointer[group];
+    }
+
     /**
      * Get Inode Table pointer in group
      * @param group Group number
@@ -36,6 +75,36 @@ public class GroupDescriptor
         return  iTablePointer[group];
     }
 
+    /**
+     * Get number of free blocks in group
+     * @param group Group number
+     * @return Number of free blocks
+     */
+    public int getFreeBlocks(int group)
+    {
+        return freeBlocks[group];
+    }
+
+    /**
+     * Get number of free inodes in group
+     * @param group Group number
+     * @return Number of free inodes
+     */
+    public int getFreeInodes(int group)
+    {
+        return freeInodes[group];
+    }
+
+    /**
+     * Get number of directories in group
+     * @param group Group number
+     * @return Number of directories
+     */
+    public int getUsedDirectories(int group)
+    {
+        return usedDirectories[group];
+    }
+
     /**
      * Prints Group Descriptors Info
      */
@@ -44,9 +113,10 @@ public class GroupDescriptor
         System.out.println("---------------------------------------");
         System.out.println("Group Descriptors info");
         System.out.println("Block groups in disk: " + groups);
-        System.out.println("Inode Table Pointers:");
-        for(int pointer : iTablePointer)
-            System.out.println(pointer);
+        System.out.println("Group, block bitmap, inode bitmap, inode table, free blocks, free inodes, directories:");
+        for(int i = 0;i<groups;i++)
+            System.out.println(i + " " + blockBitmapPointer[i] + " " + inodeBitmapPointer[i] + " " + iTablePointer[i]
+                + " " + freeBlocks[i] + " " + freeInodes[i] + " " + usedDirectories[i]);
         System.out.println("---------------------------------------");
     }
 
@@ -73,4 +73,29 @@ public class Helper
     {
         return 0xffff & (int)number;
     }
+
+    /**
+     * Gets last name of a normalized path
+     * @param path Normalized path
+     * @return Last name, empty for the root directory
+     */
+    public static String getPathName(String path)
+    {
+        String[] names = path.split("/");
+        return names.length == 0 ? "" : names[names.length-1];
+    }
+
+    /**
+     * Makes a path absolute and removes a trailing '/'
+     * @param path Path
+     * @return Normalized path
+     */
+    public static String normalizePath(String path)
+    {
+        if(!path.startsWith("/"))
+            path = "/" + path;
+        while(path.length() > 1 && path.endsWith("/"))
+            path = path.substring(0, path.length()-1);
+        return path;
+    }
 }
\ No newline at end of file
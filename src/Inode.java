@@ -1,65 +1,36 @@
-import java.nio.ByteBuffer;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 /**
- * Class for retrieving and storing Inode data.
- * Allows for data to be read from Inode in an appropriate format
+ * Class for reading Inode data in an appropriate format.
+ * An Inode is a lightweight view of one entry of the Volume's InodeTable, the data itself is stored in the table.
  */
 public class Inode
 {
-    private final int fileMode;
+    private final InodeTable table;
+    private final int index;
 
-    private final int ownerId;
-    private final int groupId;
-
-    private final long accessTime;
-    private final long lastModifiedTime;
-    private final long creationTime;
-    private final long deletedTime;
-
-    private final int hardLinks;
-
-    private final long[] blockPointer = new long[Constants.INODE_DIRECT_POINTERS];
-    private final long indirectPointer;
-    private final long doubleIndirectPoint;
-    private final long tripleIndirectPointer;
-
-    private final int fileSizeLower;
-    private final int fileSizeUpper;
-
-    private final SimpleDateFormat formatter = new SimpleDateFormat("MMM dd HH:mm");
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm").withZone(ZoneId.systemDefault());
 
     /**
-     * Gets and saves Inode data
-     * @param inode Inode ByteBufffer
+     * Create Inode view of a stored inode
+     * @param table InodeTable holding the inode
+     * @param index Inode number
      */
-    public Inode(ByteBuffer inode)
+    public Inode(InodeTable table, int index)
     {
-        fileMode = Helper.getUShort(inode.getShort());
-        ownerId = Helper.getUShort(inode.getShort());
-        fileSizeLower = inode.getInt();
-
-        accessTime = Helper.getUInt(inode.getInt())* Constants.SECOND;
-        creationTime = Helper.getUInt(inode.getInt())* Constants.SECOND;
-        lastModifiedTime = Helper.getUInt(inode.getInt())* Constants.SECOND;
-        deletedTime =  Helper.getUInt(inode.getInt())* Constants.SECOND;
-
-        groupId = Helper.getUShort(inode.getShort());
-        hardLinks = Helper.getUShort(inode.getShort());
-
-        inode.position(Constants.INODE_DIRECT_POINTERS_OFFSET);
-        for(int i = 0;i<Constants.INODE_DIRECT_POINTERS;i++)
-        {
-            blockPointer[i] = Helper.getUInt(inode.getInt());
-        }
-
-        indirectPointer = Helper.getUInt(inode.getInt());
-        doubleIndirectPoint = Helper.getUInt(inode.getInt());
-        tripleIndirectPointer = Helper.getUInt(inode.getInt());
+        this.table = table;
+        this.index = index;
+    }
 
-        inode.position(Constants.INODE_FILE_SIZE_UPPER_OFFSET);
-        fileSizeUpper = inode.getInt();
+    /**
+     * Gets inode number
+     * @return Inode number
+     */
+    public int getNumber()
+    {
+        return index;
     }
 
     /**
@@ -68,7 +39,7 @@ public class Inode
      */
     public String getLastModifiedDate()
     {
-        return formatter.format(new Date(lastModifiedTime));
+        return formatter.format(Instant.ofEpochMilli(getLastModifiedTime()));
     }
 
     /**
@@ -77,6 +48,9 @@ public class Inode
      */
     public long[] getBlockpointer()
     {
+        long[] blockPointer = new long[Constants.INODE_DIRECT_POINTERS];
+        for(int i = 0;i<Constants.INODE_DIRECT_POINTERS;i++)
+            blockPointer[i] = table.getBlockPointer(index, i);
         return blockPointer;
     }
 
@@ -86,7 +60,7 @@ public class Inode
      */
     public long getIndirectPointer()
     {
-        return indirectPointer;
+        return table.getBlockPointer(index, Constants.INODE_DIRECT_POINTERS);
     }
 
     /**
@@ -95,7 +69,7 @@ public class Inode
      */
     public long getDoubleIndirectPointer()
     {
-        return doubleIndirectPoint;
+        return table.getBlockPointer(index, Constants.INODE_DIRECT_POINTERS + 1);
     }
 
     /**
@@ -104,7 +78,7 @@ public class Inode
      */
     public long getTripleIndirectPointer()
     {
-        return tripleIndirectPointer;
+        return table.getBlockPointer(index, Constants.INODE_DIRECT_POINTERS + 2);
     }
 
     /**
@@ -113,7 +87,7 @@ public class Inode
      */
     public int gethardLinks()
     {
-        return hardLinks;
+        return table.getHardLinks(index);
     }
 
     /**
@@ -122,7 +96,7 @@ public class Inode
      */
     public int getGroupId()
     {
-        return groupId;
+        return table.getGroupId(index);
     }
 
     /**
@@ -131,7 +105,7 @@ public class Inode
      */
     public int getOwnerId()
     {
-        return ownerId;
+        return table.getOwnerId(index);
     }
 
     /**
@@ -139,10 +113,41 @@ public class Inode
      */
     public boolean isDir()
     {
-        if((fileMode & Constants.IFDIR)!=0)
-            return true;
-        else
-            return false;
+        return (getFileMode() & Constants.IFMT) == Constants.IFDIR;
+    }
+
+    /**
+     * @return True if File is a Symbolic Link
+     */
+    public boolean isSymbolicLink()
+    {
+        return (getFileMode() & Constants.IFMT) == Constants.IFLNK;
+    }
+
+    /**
+     * @return True if File is a Regular File
+     */
+    public boolean isFile()
+    {
+        return (getFileMode() & Constants.IFMT) == Constants.IFREG;
+    }
+
+    /**
+     * Gets file mode, file type and permission bits
+     * @return File mode
+     */
+    public int getFileMode()
+    {
+        return table.getFileMode(index);
+    }
+
+    /**
+     * Gets last modified time
+     * @return Last modified time in milliseconds since the epoch
+     */
+    public long getLastModifiedTime()
+    {
+        return table.getLastModifiedTime(index);
     }
 
     /**
@@ -151,7 +156,7 @@ public class Inode
      */
     public long getSize()
     {
-        return (((long) fileSizeUpper) << Constants.INT_SIZE_BITS) | (fileSizeLower & 0xffffffffL);
+        return table.getSize(index);
     }
 
     /**
@@ -171,7 +176,8 @@ public class Inode
         String wo = "-";
         String xo = "-";
 
-        if((fileMode & Constants.IFDIR)!=0)
+        int fileMode = getFileMode();
+        if(isDir())
             dir = "d";
         if((fileMode & Constants.IRUSR) !=0 )
             ru = "r";
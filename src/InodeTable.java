@@ -0,0 +1,204 @@
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class for storing the decoded inodes of a Volume in primitive arrays.
+ * Inodes are grouped into pages of VOLUME_INODE_PAGE_SIZE inodes, each holding one array per field,
+ * so an inode costs 20 bytes of heap plus 60 bytes of block pointers instead of an object with a pointer array.
+ * Pages are allocated when the first of their inodes is stored, and the block pointers of a page only
+ * once one of its inodes has a block, so the free part of an inode table stays small after a scan.
+ * Storing is synchronized per page and an inode is never changed once stored, so the table can be shared by several threads.
+ */
+public class InodeTable
+{
+    private final int inodes;
+    private final AtomicReferenceArray<Page> pages;
+
+    /**
+     * Create InodeTable
+     * @param inodes Number of inodes in the volume
+     */
+    public InodeTable(int inodes)
+    {
+        this.inodes = inodes;
+        this.pages = new AtomicReferenceArray<Page>((inodes + Constants.VOLUME_INODE_PAGE_SIZE - 1) / Constants.VOLUME_INODE_PAGE_SIZE);
+    }
+
+    /**
+     * Gets the page holding an inode, allocating it if needed
+     * @param index Inode number
+     * @return Page
+     */
+    private Page getPage(int index)
+    {
+        int pageNumber = (index - 1) / Constants.VOLUME_INODE_PAGE_SIZE;
+        Page page = pages.get(pageNumber);
+        if(page == null)
+        {
+            pages.compareAndSet(pageNumber, null, new Page());
+            page = pages.get(pageNumber);
+        }
+        return page;
+    }
+
+    /**
+     * Gets the slot of an inode in its page
+     * @param index Inode number
+     * @return Slot
+     */
+    private static int getSlot(int index)
+    {
+        return (index - 1) % Constants.VOLUME_INODE_PAGE_SIZE;
+    }
+
+    /**
+     * Checks if an inode has been stored
+     * @param index Inode number
+     * @return True if the inode is stored
+     */
+    public boolean isLoaded(int index)
+    {
+        Page page = getPage(index);
+        synchronized(page)
+        {
+            return page.loaded.get(getSlot(index));
+        }
+    }
+
+    /**
+     * Decodes and stores an on-disk inode unless it is already stored
+     * @param index Inode number
+     * @param inode Little-endian buffer holding the on-disk inode from position 0
+     */
+    public void store(int index, ByteBuffer inode)
+    {
+        Page page = getPage(index);
+        int slot = getSlot(index);
+        synchronized(page)
+        {
+            if(page.loaded.get(slot))
+                return;
+
+            page.fileMode[slot] = (char)inode.getShort(Constants.INODE_FILE_MODE_OFFSET);
+            page.ownerId[slot] = (char)inode.getShort(Constants.INODE_OWNER_ID_OFFSET);
+            page.groupId[slot] = (char)inode.getShort(Constants.INODE_GROUP_ID_OFFSET);
+            page.hardLinks[slot] = (char)inode.getShort(Constants.INODE_HARD_LINKS_OFFSET);
+            page.fileSizeLower[slot] = inode.getInt(Constants.INODE_FILE_SIZE_LOWER_OFFSET);
+            page.fileSizeUpper[slot] = inode.getInt(Constants.INODE_FILE_SIZE_UPPER_OFFSET);
+            page.lastModified[slot] = inode.getInt(Constants.INODE_LAST_MODIFIED_OFFSET);
+            for(int i = 0;i<Constants.INODE_BLOCK_POINTERS;i++)
+            {
+                int pointer = inode.getInt(Constants.INODE_DIRECT_POINTERS_OFFSET + i * Constants.BLOCK_POINTER_SIZE);
+                if(pointer == 0)
+                    continue;
+                if(page.blockPointer == null)
+                    page.blockPointer = new int[Constants.VOLUME_INODE_PAGE_SIZE * Constants.INODE_BLOCK_POINTERS];
+                page.blockPointer[slot * Constants.INODE_BLOCK_POINTERS + i] = pointer;
+            }
+
+            page.loaded.set(slot);
+        }
+    }
+
+    /**
+     * Gets file mode
+     * @param index Inode number
+     * @return File mode
+     */
+    public int getFileMode(int index)
+    {
+        return getPage(index).fileMode[getSlot(index)];
+    }
+
+    /**
+     * Gets owner id
+     * @param index Inode number
+     * @return Owner id
+     */
+    public int getOwnerId(int index)
+    {
+        return getPage(index).ownerId[getSlot(index)];
+    }
+
+    /**
+     * Gets group id
+     * @param index Inode number
+     * @return Group id
+     */
+    public int getGroupId(int index)
+    {
+        return getPage(index).groupId[getSlot(index)];
+    }
+
+    /**
+     * Gets number of hard links
+     * @param index Inode number
+     * @return Number of hard links
+     */
+    public int getHardLinks(int index)
+    {
+        return getPage(index).hardLinks[getSlot(index)];
+    }
+
+    /**
+     * Gets file size
+     * @param index Inode number
+     * @return File size
+     */
+    public long getSize(int index)
+    {
+        Page page = getPage(index);
+        int slot = getSlot(index);
+        return (((long) page.fileSizeUpper[slot]) << Constants.INT_SIZE_BITS) | Helper.getUInt(page.fileSizeLower[slot]);
+    }
+
+    /**
+     * Gets last modified time
+     * @param index Inode number
+     * @return Last modified time in milliseconds since the epoch
+     */
+    public long getLastModifiedTime(int index)
+    {
+        return Helper.getUInt(getPage(index).lastModified[getSlot(index)]) * Constants.SECOND;
+    }
+
+    /**
+     * Gets a block pointer
+     * @param index Inode number
+     * @param pointer Pointer number, direct pointers first, then indirect, double and triple indirect
+     * @return Block pointer
+     */
+    public long getBlockPointer(int index, int pointer)
+    {
+        int[] blockPointer = getPage(index).blockPointer;
+        if(blockPointer == null)
+            return 0;
+        return Helper.getUInt(blockPointer[getSlot(index) * Constants.INODE_BLOCK_POINTERS + pointer]);
+    }
+
+    /**
+     * Gets number of inodes in the volume
+     * @return Number of inodes
+     */
+    public int getInodes()
+    {
+        return inodes;
+    }
+
+    /**
+     * Inner class holding the fields of VOLUME_INODE_PAGE_SIZE consecutive inodes
+     */
+    private static class Page
+    {
+        private final char[] fileMode = new char[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final char[] ownerId = new char[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final char[] groupId = new char[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final char[] hardLinks = new char[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final int[] fileSizeLower = new int[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final int[] fileSizeUpper = new int[Constants.VOLUME_INODE_PAGE_SIZE];
+        private final int[] lastModified = new int[Constants.VOLUME_INODE_PAGE_SIZE];
+        private int[] blockPointer;
+        private final BitSet loaded = new BitSet(Constants.VOLUME_INODE_PAGE_SIZE);
+    }
+}
\ No newline at end of file
@@ -2,20 +2,37 @@
  * SCC 211 Coursework
  * <br><br>
  * 
- * java -jar ext2Reader.jar [imagename]
+ * java -jar ext2Reader.jar [imagename] [-m]
+ * <br>-m memory-maps the image instead of reading it block by block
  * 
  * API example <br>
- * Volume vol = new Volume(String path) <br><br>
+ * Volume vol = new Volume(String path) <br>
+ * Volume vol = new Volume(String path, boolean mapped) <br><br>
  * 
  * Ext2File ext2File = new Ext2File(Volume vol, String path)<br>
  * ext2File.read (long startByte, long length)<br>
  * ext2File.read (long length)<br>
  * ext2File.seek (long position)<br>
  * ext2File.position()<br>
- * ext2File.size()<br><br>
+ * ext2File.size()<br>
+ * ext2File.getInputStream()<br>
+ * ext2File.getChannel()<br>
+ * ext2File.seekData (long offset)<br>
+ * ext2File.seekHole (long offset)<br>
+ * ext2File.getDataRanges()<br>
+ * ext2File.writeTo (OutputStream out)<br>
+ * ext2File.transferTo (WritableByteChannel target)<br><br>
  * 
  * Directory dir = new Directory(Volume vol, String path)<br>
- * dir.getFileInfo()<br><br>
+ * dir.getFileInfo()<br>
+ * dir.getFileInfo(Appendable out)<br><br>
+ * 
+ * Extractor extractor = new Extractor(Volume vol)<br>
+ * extractor.extract(String path, String hostDir)<br><br>
+ * 
+ * FindQuery query = FindQuery.parse(String[] arguments, int first, long now)<br>
+ * Finder finder = new Finder(Volume vol)<br>
+ * finder.find(String path, FindQuery query, BiConsumer&lt;String, Inode&gt; action)<br><br>
  * 
  * Helper.dumpHexBytes (byte[] bytes)<br><br>
  * 
@@ -27,7 +44,8 @@ public class Main
 {
     public static void main(String[] args) {    
 
-        Volume vol = new Volume(args[0]);
+        boolean mapped = args.length > 1 && args[1].equals(Constants.VOLUME_MAPPED_FLAG);
+        Volume vol = new Volume(args[0], mapped);
         Console console = new Console(vol);
         console.launch();
     }
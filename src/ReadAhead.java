@@ -0,0 +1,236 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Class for reading a file ahead of the reader on a background executor.
+ * File blocks are read in windows. While the file is read sequentially, the next window
+ * is prefetched and the window size doubles up to Constants.READ_AHEAD_MAX_WINDOW.
+ * A non-sequential access cancels the prefetch and shrinks the window back to Constants.READ_AHEAD_MIN_WINDOW.
+ * Block pointers are resolved on the calling thread, the background task only does positional reads.
+ */
+public class ReadAhead
+{
+    private final Volume vol;
+    private final FileInfo fileInfo;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int minBlocks;
+    private final int maxBlocks;
+    private int windowBlocks;
+    private long nextBlock = 0;
+
+    private byte[] current;
+    private long currentFirst = 0;
+    private int currentBlocks = 0;
+
+    private Future<byte[]> pending;
+    private long pendingFirst = 0;
+    private int pendingBlocks = 0;
+
+    /**
+     * Create ReadAhead
+     * @param vol Volume
+     * @param fileInfo Block map of the file to read
+     * @param executor Executor to prefetch windows on
+     */
+    public ReadAhead(Volume vol, FileInfo fileInfo, ExecutorService executor)
+    {
+        this.vol = vol;
+        this.fileInfo = fileInfo;
+        this.executor = executor;
+        this.blockSize = vol.getBlockSize();
+        this.minBlocks = Math.max(1, Constants.READ_AHEAD_MIN_WINDOW / blockSize);
+        this.maxBlocks = Math.max(minBlocks, Constants.READ_AHEAD_MAX_WINDOW / blockSize);
+        this.windowBlocks = minBlocks;
+    }
+
+    /**
+     * Gets data block at a logical block number.
+     * Blocks past the end of the file and holes are the shared zero block, as without read-ahead.
+     * @param block Logical block number
+     * @return Read-only data block
+     */
+    public ByteBuffer getBlock(long block)
+    {
+        if(block < 0 || block >= fileInfo.getBlockNo() || fileInfo.getBlockPointer(block) == 0)
+        {
+            nextBlock = block + 1;
+            return vol.getZeroBlock();
+        }
+
+        load(block);
+        ByteBuffer window = ByteBuffer.wrap(current, (int)(block - currentFirst) * blockSize, blockSize).slice();
+        return window.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Copies file bytes into an array, one window at a time
+     * @param startByte The position in file to start reading from
+     * @param arr Destination array
+     * @param offset The start offset in the destination array
+     * @param length The amount of bytes to be read
+     */
+    public void read(long startByte, byte[] arr, int offset, int length)
+    {
+        long filePosition = startByte;
+        int copied = 0;
+
+        while(copied < length)
+        {
+            long block = filePosition / blockSize;
+            load(block);
+
+            int windowOffset = (int)(filePosition - currentFirst * blockSize);
+            int amount = Math.min(length - copied, currentBlocks * blockSize - windowOffset);
+            System.arraycopy(current, windowOffset, arr, offset + copied, amount);
+
+            copied += amount;
+            filePosition += amount;
+            nextBlock = (filePosition + blockSize - 1) / blockSize;
+        }
+    }
+
+    /**
+     * Cancels any prefetch in progress and drops the buffered windows
+     */
+    public void cancel()
+    {
+        if(pending != null)
+            pending.cancel(false);
+        pending = null;
+        current = null;
+        currentBlocks = 0;
+        windowBlocks = minBlocks;
+    }
+
+    /**
+     * Makes the window holding a block current, prefetching the next window on sequential access
+     * @param block Logical block number
+     */
+    private void load(long block)
+    {
+        boolean sequential = block == nextBlock || (current != null && block >= currentFirst && block < currentFirst + currentBlocks);
+        nextBlock = block + 1;
+
+        if(current != null && block >= currentFirst && block < currentFirst + currentBlocks)
+            return;
+
+        if(pending != null && block >= pendingFirst && block < pendingFirst + pendingBlocks)
+        {
+            current = await(pending);
+            currentFirst = pendingFirst;
+            currentBlocks = pendingBlocks;
+            pending = null;
+            windowBlocks = Math.min(windowBlocks * 2, maxBlocks);
+        }
+        else
+        {
+            if(pending != null)
+                pending.cancel(false);
+            pending = null;
+
+            if(!sequential)
+                windowBlocks = minBlocks;
+
+            currentFirst = block;
+            currentBlocks = getWindowBlocks(block);
+            current = readWindow(getSegments(currentFirst, currentBlocks), currentBlocks);
+        }
+
+        if(sequential)
+            prefetch(currentFirst + currentBlocks);
+    }
+
+    /**
+     * Starts reading the window at first block on the executor
+     * @param first First logical block of the window
+     */
+    private void prefetch(long first)
+    {
+        int blocks = getWindowBlocks(first);
+        if(blocks <= 0)
+            return;
+
+        final long[] segments = getSegments(first, blocks);
+        pendingFirst = first;
+        pendingBlocks = blocks;
+        pending = executor.submit(() -> readWindow(segments, blocks));
+    }
+
+    /**
+     * Gets number of blocks in the window starting at first block, limited by the end of file
+     * @param first First logical block of the window
+     * @return Number of blocks in the window
+     */
+    private int getWindowBlocks(long first)
+    {
+        return (int)Math.max(0, Math.min(windowBlocks, fileInfo.getBlockNo() - first));
+    }
+
+    /**
+     * Resolves the physical runs of a window on the calling thread
+     * @param first First logical block of the window
+     * @param blocks Number of blocks in the window
+     * @return Triples of (disk offset, window offset, length), holes are left out
+     */
+    private long[] getSegments(long first, int blocks)
+    {
+        long[] segments = new long[blocks * 3];
+        int count = 0;
+        int block = 0;
+
+        while(block < blocks)
+        {
+            int run = fileInfo.getRunLength(first + block);
+            int amount = run == 0 ? 1 : Math.min(run, blocks - block);
+            if(run != 0)
+            {
+                segments[count++] = fileInfo.getBlockPointer(first + block) * blockSize;
+                segments[count++] = (long)block * blockSize;
+                segments[count++] = (long)amount * blockSize;
+            }
+            block += amount;
+        }
+        return Arrays.copyOf(segments, count);
+    }
+
+    /**
+     * Reads a window from the volume, can run on any thread
+     * @param segments Triples of (disk offset, window offset, length)
+     * @param blocks Number of blocks in the window
+     * @return Window data, holes are zero
+     */
+    private byte[] readWindow(long[] segments, int blocks)
+    {
+        byte[] window = new byte[blocks * blockSize];
+        for(int i = 0;i<segments.length;i += 3)
+            vol.readBytes(segments[i], window, (int)segments[i + 1], (int)segments[i + 2]);
+        return window;
+    }
+
+    /**
+     * Waits for a prefetched window
+     * @param future Prefetch in progress
+     * @return Window data
+     */
+    private byte[] await(Future<byte[]> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for read-ahead", e);
+        }
+        catch(ExecutionException e)
+        {
+            throw new IllegalStateException("Read-ahead failed", e.getCause());
+        }
+    }
+}
\ No newline at end of file
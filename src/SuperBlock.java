@@ -14,6 +14,8 @@ public class SuperBlock
     private final int inodes_per_group;
     private final int inodeSize;
     private final int groups;
+    private final int blockSize;
+    private final long firstDataBlock;
     private final byte[] label = new byte[Constants.SUPERBLOCK_LABEL_SIZE];
 
     /**
@@ -22,14 +24,16 @@ public class SuperBlock
      */
     public SuperBlock(Volume volume)
     {
-        superblock = volume.getByteBuffer(Constants.SUPERBLOCK_OFFSET,Constants.BLOCK_SIZE);
+        superblock = volume.getByteBuffer(Constants.SUPERBLOCK_OFFSET,Constants.SUPERBLOCK_SIZE);
 
         magic_number = Helper.getUShort(superblock.getShort(Constants.SUPERBLOCK_MAGIC_NUMBER_OFFSET));
         inodes = superblock.getInt();
         blocks = Helper.getUInt(superblock.getInt());
         blocks_per_group = Helper.getUInt(superblock.getInt(Constants.SUPERBLOCK_BLOCKS_PER_GROUP_OFFSET));
         inodes_per_group = superblock.getInt(Constants.SUPERBLOCK_INODES_PER_GROUP_OFFSET);
-        inodeSize = superblock.getInt(Constants.SUPERBLOCK_INODE_SIZE_OFFSET);
+        inodeSize = Helper.getUShort(superblock.getShort(Constants.SUPERBLOCK_INODE_SIZE_OFFSET));
+        firstDataBlock = Helper.getUInt(superblock.getInt(Constants.SUPERBLOCK_FIRST_DATA_BLOCK_OFFSET));
+        blockSize = Constants.SUPERBLOCK_MIN_BLOCK_SIZE << superblock.getInt(Constants.SUPERBLOCK_LOG_BLOCK_SIZE_OFFSET);
 
         superblock.position(Constants.SUPERBLOCK_LABEL_OFFSET);
         for(int i = 0;i<Constants.SUPERBLOCK_LABEL_SIZE;i++)
@@ -38,7 +42,7 @@ public class SuperBlock
 
         }
 
-        groups = (int) (blocks / blocks_per_group) + 1;
+        groups = (int) ((blocks - firstDataBlock + blocks_per_group - 1) / blocks_per_group);
     }
 
     /**
@@ -86,6 +90,33 @@ public class SuperBlock
         return inodeSize;
     }
 
+    /**
+     * Gets block size
+     * @return Block size in bytes
+     */
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * Gets number of block pointers that fit in one block
+     * @return Number of block pointers per block
+     */
+    public int getPointersPerBlock()
+    {
+        return blockSize / Constants.BLOCK_POINTER_SIZE;
+    }
+
+    /**
+     * Gets block number of the first data block, the block holding the superblock
+     * @return First data block number
+     */
+    public long getFirstDataBlock()
+    {
+        return firstDataBlock;
+    }
+
     /**
      * Gets volume Label (name)
      * @return Volume Label (name)
@@ -117,6 +148,7 @@ public class SuperBlock
         System.out.println("Inodes per group: " + inodes_per_group);
         System.out.println("Blocks per group: " + blocks_per_group);
         System.out.println("Inode size: " + inodeSize);
+        System.out.println("Block size: " + blockSize);
         System.out.println("Label: " + new String(label));
         System.out.println("---------------------------------------");
     }
@@ -1,30 +1,84 @@
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class allows for data to be read from disk.
- * Stores SuperBlock, GroupDescriptor and Inodes.
+ * Stores SuperBlock, GroupDescriptor and the InodeTable.
+ * Reads are positional and all shared state is thread-safe, so one Volume can serve many threads.
+ * Directory, FileInfo and Ext2File objects are not thread-safe and should be used by one thread each.
  */
-public class Volume
+public class Volume implements Closeable
 {
     private final SuperBlock superBlock;
     private final GroupDescriptor groupDescriptor;
     private RandomAccessFile raf;
-    private Inode[] inode;
+    private FileChannel channel;
+    private MappedByteBuffer[] chunks;
+    private final InodeTable inodes;
+    private final ByteBuffer zeroBlock;
+    private final BlockCache blockCache;
+    private ExecutorService readAheadExecutor;
+    private final DentryCache dentryCache = new DentryCache(Constants.VOLUME_DENTRY_CACHE_SIZE);
+    private final LinkedHashMap<Integer, DirectoryIndex> directoryIndexes = new LinkedHashMap<Integer, DirectoryIndex>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, DirectoryIndex> eldest)
+        {
+            return size() > Constants.VOLUME_DIRECTORY_INDEX_CACHE_SIZE;
+        }
+    };
 
     /**
-     * Opens up the disk, reads the superblock, group descriptors and inodes.
+     * Opens up the disk, reads the superblock and group descriptors.
+     * Inodes are read on demand by getInode.
      * @param name Name of the Volume file
      */
     public Volume(String name)
     {
+        this(name, false, Constants.VOLUME_BLOCK_CACHE_SIZE);
+    }
+
+    /**
+     * Opens up the disk, reads the superblock and group descriptors.
+     * If mapped is set, the disk is memory-mapped and reads return slices of the mapping.
+     * @param name Name of the Volume file
+     * @param mapped True to memory-map the disk instead of reading it with seek/read
+     */
+    public Volume(String name, boolean mapped)
+    {
+        this(name, mapped, Constants.VOLUME_BLOCK_CACHE_SIZE);
+    }
+
+    /**
+     * Opens up the disk, reads the superblock and group descriptors.
+     * Blocks read through getBlock are kept in a shared cache of cacheBlocks blocks.
+     * @param name Name of the Volume file
+     * @param mapped True to memory-map the disk instead of reading it with seek/read
+     * @param cacheBlocks Block cache capacity in blocks, 0 disables the cache
+     */
+    public Volume(String name, boolean mapped, int cacheBlocks)
+    {
+        blockCache = new BlockCache(cacheBlocks);
         try
         {
             System.out.println("---------------------------------------");
             System.out.println("Opening disk " + name);
 
             raf = new RandomAccessFile(name, "r");
+            channel = raf.getChannel();
+            if(mapped)
+                mapChunks();
 
             System.out.println("Disk Opened");
             System.out.println("---------------------------------------");
@@ -36,48 +90,247 @@ public class Volume
 
         superBlock = new SuperBlock(this);
         groupDescriptor = new GroupDescriptor(this);
-        findInodes();
+        inodes = new InodeTable(superBlock.getInodes());
+        zeroBlock = ByteBuffer.allocate(superBlock.getBlockSize()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Maps the whole disk into memory in chunks of Constants.VOLUME_MAP_CHUNK_SIZE,
+     * so disks larger than 2 GiB can be mapped as well
+     * @throws IOException If the disk could not be mapped
+     */
+    private void mapChunks() throws IOException
+    {
+        long size = channel.size();
+        int count = (int)((size + Constants.VOLUME_MAP_CHUNK_SIZE - 1) / Constants.VOLUME_MAP_CHUNK_SIZE);
+
+        chunks = new MappedByteBuffer[count];
+        for(int i = 0;i<count;i++)
+        {
+            long start = (long)i * Constants.VOLUME_MAP_CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(Constants.VOLUME_MAP_CHUNK_SIZE, size - start));
+        }
+    }
+
+    /**
+     * Gets a read-only Little Endian slice of the mapped disk.
+     * Returns null if the range does not lie within a single chunk.
+     * @param offset The start offset in Volume at which the data is written
+     * @param length The amount of bytes in the slice
+     * @return ByteBuffer slice or null
+     */
+    private ByteBuffer getMappedSlice(long offset, int length)
+    {
+        int chunk = (int)(offset / Constants.VOLUME_MAP_CHUNK_SIZE);
+        int chunkOffset = (int)(offset % Constants.VOLUME_MAP_CHUNK_SIZE);
+
+        if(chunk >= chunks.length || chunkOffset + length > chunks[chunk].capacity())
+            return null;
+
+        return chunks[chunk].slice(chunkOffset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Copies length bytes from the mapped disk into bytes, crossing chunk boundaries if needed.
+     * Bytes past the end of the disk are left unchanged.
+     * @param offset The start offset in Volume at which the data is written
+     * @param bytes Destination array
+     * @param bytesOffset The start offset in the destination array
+     * @param length The amount of bytes to be copied
+     */
+    private void copyMapped(long offset, byte[] bytes, int bytesOffset, int length)
+    {
+        int copied = 0;
+        while(copied < length)
+        {
+            int chunk = (int)((offset + copied) / Constants.VOLUME_MAP_CHUNK_SIZE);
+            int chunkOffset = (int)((offset + copied) % Constants.VOLUME_MAP_CHUNK_SIZE);
+
+            if(chunk >= chunks.length || chunkOffset >= chunks[chunk].capacity())
+                break;
+
+            int amount = Math.min(length - copied, chunks[chunk].capacity() - chunkOffset);
+            chunks[chunk].get(chunkOffset, bytes, bytesOffset + copied, amount);
+            copied += amount;
+        }
     }
 
     /**
-     * Finds all inodes in the volume
+     * Checks if the disk is memory-mapped
+     * @return True if the disk is memory-mapped
      */
-    private void findInodes()
+    public boolean isMapped()
     {
-        inode = new Inode[superBlock.getInodes_per_group()*superBlock.getGroups()+1];
-        for(int i = 0;i<superBlock.getGroups();i++)
+        return chunks != null;
+    }
+
+    /**
+     * Reads an inode from its block group's inode table into the inode store
+     * @param index Inode number
+     */
+    private void readInode(int index)
+    {
+        int group = (index - 1) / superBlock.getInodes_per_group();
+        int slot = (index - 1) % superBlock.getInodes_per_group();
+        long inodeOffset = (long)superBlock.getInodeSize() * slot;
+
+        ByteBuffer block = getBlock(groupDescriptor.getiTablePointer(group) + inodeOffset / getBlockSize());
+        block.position((int)(inodeOffset % getBlockSize()));
+        block.limit(block.position() + superBlock.getInodeSize());
+
+        inodes.store(index, block.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Reads every inode in use into the inode store.
+     * Block groups are split across the common fork/join pool and each group's inode table is decoded independently.
+     * @return Number of inodes in the volume
+     */
+    public int scanInodes()
+    {
+        return scanInodes(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads every inode in use into the inode store.
+     * Block groups are split across pool and decoded independently. Groups without used inodes are skipped,
+     * and in the others only the inodes marked in the group's inode bitmap are read and decoded.
+     * Free inodes are left to be read on demand by getInode. Inodes that were already loaded are kept.
+     * @param pool Fork/join pool to run the scan in
+     * @return Number of inodes in the volume
+     */
+    public int scanInodes(ForkJoinPool pool)
+    {
+        pool.invoke(new GroupScan(0, superBlock.getGroups()));
+        return superBlock.getInodes();
+    }
+
+    /**
+     * Decodes the used inodes of a block group's inode table into the inode store.
+     * Used inodes are read in spans, a span ending only at a run of free inodes longer than VOLUME_SCAN_INODE_GAP blocks.
+     * @param group Block group number
+     */
+    private void scanGroup(int group)
+    {
+        int inodeSize = superBlock.getInodeSize();
+        int first = group * superBlock.getInodes_per_group() + 1;
+        int count = Math.min(superBlock.getInodes_per_group(), superBlock.getInodes() - first + 1);
+        if(count <= 0 || groupDescriptor.getFreeInodes(group) >= count)
+            return;
+
+        byte[] bitmap = new byte[(count + Byte.SIZE - 1) / Byte.SIZE];
+        readBytes((long)groupDescriptor.getInodeBitmapPointer(group) * getBlockSize(), bitmap, 0, bitmap.length);
+        BitSet used = BitSet.valueOf(bitmap);
+        int gap = Constants.VOLUME_SCAN_INODE_GAP * getBlockSize() / inodeSize;
+        long table = (long)groupDescriptor.getiTablePointer(group) * getBlockSize();
+
+        int start = used.nextSetBit(0);
+        while(start >= 0 && start < count)
         {
-            for(int a = 1;a<=superBlock.getInodes_per_group();a++)
+            int end = used.nextClearBit(start);
+            int next = used.nextSetBit(end);
+            while(next >= 0 && next < count && next - end <= gap)
             {
-                int index = a + (i * superBlock.getInodes_per_group());
-                int inodeOffset = (groupDescriptor.getiTablePointer(i) * Constants.BLOCK_SIZE) + (superBlock.getInodeSize() * (a - 1));
-                inode[index] = new Inode(getByteBuffer(inodeOffset, superBlock.getInodeSize()));
+                end = used.nextClearBit(next);
+                next = used.nextSetBit(end);
             }
+            end = Math.min(end, count);
+
+            byte[] span = new byte[(end - start) * inodeSize];
+            readBytes(table + (long)start * inodeSize, span, 0, span.length);
+            for(int i = used.nextSetBit(start);i >= 0 && i < end;i = used.nextSetBit(i + 1))
+                inodes.store(first + i, ByteBuffer.wrap(span, (i - start) * inodeSize, inodeSize).slice().order(ByteOrder.LITTLE_ENDIAN));
+
+            start = next;
         }
     }
 
     /**
-     * Reads length bytes from volume and returns ByteBuffer
+     * Reads length bytes from volume and returns ByteBuffer.
+     * If the disk is memory-mapped, a read-only slice of the mapping is returned without copying.
      * @param offset The start offset in Volume at which the data is written
      * @param length The amount of bytes to be read
      * @return ByteBuffer
      */
     public ByteBuffer getByteBuffer(long offset,int length)
     {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(length);
-        byte[] bytes = new byte[length];
-        try
+        if(chunks != null)
         {
-            raf.seek(offset);
-            raf.read(bytes,0,length);
-            byteBuffer = ByteBuffer.wrap(bytes);
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer slice = getMappedSlice(offset, length);
+            if(slice != null)
+                return slice;
         }
-        catch(IOException e)
+        return wrapBuffer(getBytes(offset, length));
+    }
+
+    /**
+     * Gets block with specified physical block number through the shared block cache
+     * @param blockNumber Physical block number
+     * @return Read-only block data
+     */
+    public ByteBuffer getBlock(long blockNumber)
+    {
+        ByteBuffer block = blockCache.get(blockNumber);
+        if(block == null)
+            block = blockCache.put(blockNumber, getByteBuffer(blockNumber * getBlockSize(), getBlockSize()));
+        return block;
+    }
+
+    /**
+     * Gets the block cache shared by all readers of this Volume
+     * @return BlockCache
+     */
+    public BlockCache getBlockCache()
+    {
+        return blockCache;
+    }
+
+    /**
+     * Gets the executor used for read-ahead of files in this Volume, creating it on first use.
+     * Its threads are daemon threads, so they do not keep the program running.
+     * @return ExecutorService for read-ahead
+     */
+    public synchronized ExecutorService getReadAheadExecutor()
+    {
+        if(readAheadExecutor == null)
         {
-            System.out.println(e);
-        }  
-        return byteBuffer;
+            readAheadExecutor = Executors.newCachedThreadPool(runnable ->
+            {
+                Thread thread = new Thread(runnable, "ext2-read-ahead");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return readAheadExecutor;
+    }
+
+    /**
+     * Gets the directory entry cache shared by all Directories of this Volume
+     * @return DentryCache
+     */
+    public DentryCache getDentryCache()
+    {
+        return dentryCache;
+    }
+
+    /**
+     * Gets the name index built for a directory
+     * @param inode Inode number of the directory
+     * @return DirectoryIndex, null if no index has been built for the directory yet
+     */
+    public synchronized DirectoryIndex getDirectoryIndex(int inode)
+    {
+        return directoryIndexes.get(inode);
+    }
+
+    /**
+     * Saves the name index built for a directory, evicting the least recently used index if needed
+     * @param inode Inode number of the directory
+     * @param directoryIndex DirectoryIndex of the directory
+     */
+    public synchronized void putDirectoryIndex(int inode, DirectoryIndex directoryIndex)
+    {
+        directoryIndexes.put(inode, directoryIndex);
     }
 
     /**
@@ -89,16 +342,71 @@ public class Volume
     public byte[] getBytes(long offset,int length)
     {
         byte[] bytes = new byte[length];
+        readBytes(offset, bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Reads length bytes from volume straight into an existing array.
+     * Reads are positional and do not move a shared file pointer, so they can be made from several threads at once.
+     * Bytes past the end of the volume are left unchanged.
+     * @param offset The start offset in Volume at which the data is written
+     * @param bytes Destination array
+     * @param bytesOffset The start offset in the destination array
+     * @param length The amount of bytes to be read
+     */
+    public void readBytes(long offset, byte[] bytes, int bytesOffset, int length)
+    {
+        if(chunks != null)
+        {
+            copyMapped(offset, bytes, bytesOffset, length);
+            return;
+        }
+
         try
         {
-            raf.seek(offset);
-            raf.read(bytes,0,length);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, bytesOffset, length);
+            while(buffer.hasRemaining())
+            {
+                if(channel.read(buffer, offset + buffer.position() - bytesOffset) < 0)
+                    break;
+            }
         }
         catch(IOException e)
         {
             System.out.println(e);
-        }  
-        return bytes;
+        }
+    }
+
+    /**
+     * Transfers length bytes of the volume straight into a channel with FileChannel.transferTo,
+     * which the kernel can serve with sendfile or copy_file_range without copying through the heap.
+     * Transfers are positional, so they can be made from several threads at once.
+     * @param offset The start offset in Volume
+     * @param length The amount of bytes to be transferred
+     * @param target Channel to write the bytes to, at its current position
+     * @throws IOException If the transfer failed or the volume ended before length bytes
+     */
+    public void transferTo(long offset, long length, WritableByteChannel target) throws IOException
+    {
+        long transferred = 0;
+        while(transferred < length)
+        {
+            long amount = channel.transferTo(offset + transferred, length - transferred, target);
+            if(amount <= 0)
+                throw new IOException("Transfer stopped at offset " + (offset + transferred));
+            transferred += amount;
+        }
+    }
+
+    /**
+     * Gets an empty block, used for the holes of sparse files.
+     * All callers share one zeroed array, so the returned buffer is read-only.
+     * @return Read-only little-endian buffer of one block of zeros
+     */
+    public ByteBuffer getZeroBlock()
+    {
+        return zeroBlock.duplicate().order(ByteOrder.LITTLE_ENDIAN);
     }
 
     /**
@@ -114,6 +422,26 @@ public class Volume
         return byteBuffer;
     }
 
+    /**
+     * Closes the disk and stops the read-ahead executor.
+     * Mapped chunks are released once they are no longer referenced.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if(readAheadExecutor != null)
+            readAheadExecutor.shutdownNow();
+        try
+        {
+            if(raf != null)
+                raf.close();
+        }
+        catch(IOException e)
+        {
+            System.out.println(e);
+        }
+    }
+
     /**
      * Gets Superblock
      * @return SuperBlock
@@ -123,6 +451,15 @@ public class Volume
         return superBlock;
     }
 
+    /**
+     * Gets block size of the volume
+     * @return Block size in bytes
+     */
+    public int getBlockSize()
+    {
+        return superBlock.getBlockSize();
+    }
+
     /**
      * Gets Group Descriptor
      * @return GroupDescriptor
@@ -133,13 +470,59 @@ public class Volume
     }
 
     /**
-     * Gets Inode at specified index from the array
-     * @param index index of the Inode in the array
-     * @return Inode at index from the array
+     * Gets Inode with specified number.
+     * The inode is read from the inode table the first time it is requested and kept in the inode store afterwards.
+     * The returned Inode is a view of the store and cheap to create.
+     * @param index Inode number
+     * @return Inode with specified number, null if the number is out of range
      */
     public Inode getInode(int index)
     {
-        return inode[index];
+        if(index < 1 || index > superBlock.getInodes())
+            return null;
+
+        if(!inodes.isLoaded(index))
+            readInode(index);
+        return new Inode(inodes, index);
     }
 
+    /**
+     * Inner class to scan a range of block groups, splitting it in half until it is small enough
+     */
+    private class GroupScan extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstGroup;
+        private final int lastGroup;
+
+        /**
+         * Create GroupScan
+         * @param firstGroup First block group to scan
+         * @param lastGroup Block group after the last one to scan
+         */
+        private GroupScan(int firstGroup, int lastGroup)
+        {
+            this.firstGroup = firstGroup;
+            this.lastGroup = lastGroup;
+        }
+
+        /**
+         * Scans the groups or splits the range into two subtasks
+         */
+        @Override
+        protected void compute()
+        {
+            if(lastGroup - firstGroup <= Constants.VOLUME_SCAN_GROUPS_PER_TASK)
+            {
+                for(int group = firstGroup;group<lastGroup;group++)
+                    scanGroup(group);
+            }
+            else
+            {
+                int middle = (firstGroup + lastGroup) >>> 1;
+                invokeAll(new GroupScan(firstGroup, middle), new GroupScan(middle, lastGroup));
+            }
+        }
+    }
 }
\ No newline at end of file